@@ -0,0 +1,98 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 메일 발송 대기열 확인용 로컬 SMTP 서버. 받은 메일은 저장하지 않고 제목만 출력합니다.
+ * 메시지마다 지연을 주거나 일정 비율로 일시 오류(451)를 돌려줘서 재시도/백오프와 연결 묶음 발송을 확인할 수 있습니다.
+ * 서버는 spring.mail.host=localhost, spring.mail.port=<port>, spring.mail.properties.mail.smtp.auth=false,
+ * spring.mail.properties.mail.smtp.starttls.enable=false 로 띄웁니다.
+ *
+ * 실행: java loadtest/FakeSmtpServer.java [port=2525] [delayMs=0] [failureRate=0.0]
+ */
+public class FakeSmtpServer {
+
+    private static final AtomicInteger connections = new AtomicInteger();
+    private static final AtomicInteger accepted = new AtomicInteger();
+    private static final AtomicInteger rejected = new AtomicInteger();
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 2525;
+        long delayMs = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        double failureRate = args.length > 2 ? Double.parseDouble(args[2]) : 0.0;
+
+        try (ServerSocket server = new ServerSocket(port)) {
+            System.out.printf("fake smtp listening on %d (delay=%dms, failureRate=%.2f)%n", port, delayMs, failureRate);
+            while (true) {
+                Socket socket = server.accept();
+                Thread.ofVirtual().start(() -> handle(socket, delayMs, failureRate));
+            }
+        }
+    }
+
+    private static void handle(Socket socket, long delayMs, double failureRate) {
+        int connection = connections.incrementAndGet();
+        int messages = 0;
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII))) {
+            OutputStream out = socket.getOutputStream();
+            reply(out, "220 localhost fake smtp");
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250 localhost");
+                    case "MAIL", "RCPT", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        String subject = "";
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            if (line.startsWith("Subject:")) subject = line.substring(8).trim();
+                        }
+                        sleep(delayMs);
+                        messages++;
+                        if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+                            rejected.incrementAndGet();
+                            reply(out, "451 Temporary failure");
+                        } else {
+                            accepted.incrementAndGet();
+                            System.out.printf("[conn %d] message %d: %s%n", connection, messages, subject);
+                            reply(out, "250 OK");
+                        }
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            // 클라이언트가 연결을 끊음
+        } finally {
+            System.out.printf("[conn %d] closed after %d messages (total: connections=%d accepted=%d rejected=%d)%n",
+                    connection, messages, connections.get(), accepted.get(), rejected.get());
+        }
+    }
+
+    private static void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.CookieManager;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 느린 클라이언트 부하 테스트.
+ * 로그인한 세션으로 업로드 요청을 여러 개 열어 두고 본문을 아주 천천히 보내면서(요청 처리 스레드를 붙잡는 상황),
+ * 동시에 가벼운 요청(GET /api/drive/me)의 응답 시간과 성공 수를 측정합니다.
+ * 가상 스레드 모드 전후 비교: 서버를 VIRTUAL_THREADS_ENABLED=false / true 로 각각 띄우고 같은 인자로 실행합니다.
+ *
+ * 실행: java loadtest/SlowClientLoadTest.java http://localhost:8080 email password [slowClients] [seconds]
+ */
+public class SlowClientLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("usage: java loadtest/SlowClientLoadTest.java <baseUrl> <email> <password> [slowClients=1000] [seconds=30]");
+            return;
+        }
+        URI baseUri = URI.create(args[0]);
+        int slowClients = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 30;
+
+        HttpClient client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        String sessionCookie = login(client, baseUri, args[1], args[2]);
+
+        // 느린 업로드: 헤더는 바로 보내고 본문은 1초에 1바이트씩
+        AtomicInteger opened = new AtomicInteger();
+        List<Socket> sockets = new ArrayList<>();
+        ExecutorService slowExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < slowClients; i++) {
+            int id = i;
+            slowExecutor.submit(() -> {
+                try (Socket socket = new Socket(baseUri.getHost(), port(baseUri))) {
+                    synchronized (sockets) {
+                        sockets.add(socket);
+                    }
+                    OutputStream out = socket.getOutputStream();
+                    out.write(("PUT /api/files/upload?name=loadtest-" + id + ".bin HTTP/1.1\r\n"
+                            + "Host: " + baseUri.getHost() + "\r\n"
+                            + "Cookie: " + sessionCookie + "\r\n"
+                            + "Content-Type: application/octet-stream\r\n"
+                            + "Content-Length: 1048576\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                    opened.incrementAndGet();
+                    for (int second = 0; second < seconds + 5; second++) {
+                        out.write(0);
+                        out.flush();
+                        Thread.sleep(1000);
+                    }
+                } catch (IOException | InterruptedException e) {
+                    // 서버가 연결을 거부하거나 끊음
+                }
+                return null;
+            });
+        }
+
+        Thread.sleep(3000);
+        System.out.printf("slow uploads opened: %d/%d%n", opened.get(), slowClients);
+
+        // 가벼운 요청의 응답 시간 측정
+        List<Long> latencies = new ArrayList<>();
+        int failures = 0;
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        while (System.nanoTime() < deadline) {
+            long startedAt = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(HttpRequest.newBuilder(baseUri.resolve("/api/drive/me"))
+                        .timeout(Duration.ofSeconds(5))
+                        .GET()
+                        .build(), HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    latencies.add((System.nanoTime() - startedAt) / 1_000_000);
+                } else {
+                    failures++;
+                }
+            } catch (IOException e) {
+                failures++;
+            }
+            Thread.sleep(100);
+        }
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("probe requests: ok=%d failed=%d%n", sorted.length, failures);
+        if (sorted.length > 0) {
+            System.out.printf("probe latency ms: p50=%d p95=%d p99=%d max=%d%n",
+                    percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99), sorted[sorted.length - 1]);
+        }
+
+        // 느린 업로드는 끝까지 보내지 않고 끊음 (서버는 업로드 실패로 처리하고 임시 파일을 지움)
+        synchronized (sockets) {
+            for (Socket socket : sockets) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // 무시
+                }
+            }
+        }
+        slowExecutor.shutdownNow();
+    }
+
+    private static String login(HttpClient client, URI baseUri, String email, String password) throws Exception {
+        String form = "email=" + URLEncoder.encode(email, StandardCharsets.UTF_8)
+                + "&password=" + URLEncoder.encode(password, StandardCharsets.UTF_8);
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(baseUri.resolve("/api/auth/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("로그인 실패: " + response.statusCode());
+        }
+        return response.headers().allValues("Set-Cookie").stream()
+                .map(cookie -> cookie.split(";", 2)[0])
+                .filter(cookie -> cookie.startsWith("JSESSIONID="))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("세션 쿠키가 없습니다."));
+    }
+
+    private static int port(URI uri) {
+        if (uri.getPort() > 0) return uri.getPort();
+        return "https".equals(uri.getScheme()) ? 443 : 80;
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,55 @@
+package kwonjh0406.joondrive;
+
+import kwonjh0406.joondrive.auth.entity.User;
+import kwonjh0406.joondrive.repository.UserRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * 벤치마크용 애플리케이션 컨텍스트.
+ * MySQL 대신 H2 메모리 DB(MySQL 호환 모드), 저장소 경로는 임시 디렉터리를 사용하므로 외부 환경 없이 실행됩니다.
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(Path basePath) {
+        return new SpringApplicationBuilder(JoondriveApplication.class).run(
+                // 운영 설정(application-sec.yaml)은 저장소에 없으므로 무시
+                "--spring.config.on-not-found=ignore",
+                "--spring.datasource.url=jdbc:h2:mem:joondrive-bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.mail.host=localhost",
+                "--security.cors.allowed-origins=http://localhost",
+                "--server.port=0",
+                "--storage.base-path=" + basePath,
+                // 측정 중 백그라운드 정리 작업이 끼어들지 않도록
+                "--storage.reclaim.interval=PT1H",
+                "--storage.blob.sweep-interval=PT1H");
+    }
+
+    public static Long createUser(ConfigurableApplicationContext context, String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("{noop}benchmark");
+        return context.getBean(UserRepository.class).save(user).getId();
+    }
+
+    public static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) return;
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+}
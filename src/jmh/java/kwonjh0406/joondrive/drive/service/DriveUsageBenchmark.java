@@ -0,0 +1,67 @@
+package kwonjh0406.joondrive.drive.service;
+
+import kwonjh0406.joondrive.BenchmarkContext;
+import kwonjh0406.joondrive.file.repository.FileRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 사용량 계산: 장부(User.usedStorage) 조회와 파일 메타데이터 전체 합산(보정 작업)의 비용 비교.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DriveUsageBenchmark {
+
+    @Param({"10000"})
+    public int fileCount;
+
+    private Path basePath;
+    private ConfigurableApplicationContext context;
+    private DriveService driveService;
+    private FileRepository fileRepository;
+    private Long userId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        basePath = Files.createTempDirectory("usage-bench");
+        context = BenchmarkContext.start(basePath);
+        driveService = context.getBean(DriveService.class);
+        fileRepository = context.getBean(FileRepository.class);
+        userId = BenchmarkContext.createUser(context, "usage-bench@joondrive.local");
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < fileCount; i++) {
+            String name = "file-" + i + ".txt";
+            rows.add(new Object[]{userId, name, name, 1024L + i});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate(
+                "insert into file_entity (user_id, parent_id, file_type, name, logical_path, size, deleted)" +
+                        " values (?, null, 'file', ?, ?, ?, false)", rows);
+        driveService.reconcileUsedStorage();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        BenchmarkContext.deleteRecursively(basePath);
+    }
+
+    @Benchmark
+    public long ledgerLookup() {
+        return driveService.getUsedStorage(userId);
+    }
+
+    @Benchmark
+    public long fullRecalculation() {
+        return fileRepository.sumFileSizeByUserId(userId);
+    }
+}
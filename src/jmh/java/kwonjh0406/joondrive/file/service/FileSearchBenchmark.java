@@ -0,0 +1,61 @@
+package kwonjh0406.joondrive.file.service;
+
+import kwonjh0406.joondrive.file.dto.FileSearchResult;
+import kwonjh0406.joondrive.file.repository.FileSearchEntryView;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 이름 검색: 항목 수가 많은 사용자 한 명의 색인에서 검색어 길이/흔한 정도별 검색 시간.
+ * 항목은 폴더 1% (최대 3단계 깊이), 나머지는 흔한 단어를 조합한 파일 이름입니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FileSearchBenchmark {
+
+    private static final String[] WORDS = {"report", "photo", "invoice", "backup", "draft", "final", "meeting", "notes",
+            "보고서", "사진", "회의록", "계약서"};
+    private static final String[] EXTENSIONS = {".pdf", ".jpg", ".txt", ".docx", ".xlsx"};
+
+    @Param({"1000000"})
+    public int entryCount;
+
+    // 흔한 단어, 드문 이름, 두 글자(전체 훑기), 없는 이름
+    @Param({"report", "invoice-2024-0042", "사진", "zzzz"})
+    public String query;
+
+    private FileNameIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<FileSearchEntryView> entries = new ArrayList<>(entryCount);
+        int folderCount = entryCount / 100;
+        for (int i = 1; i <= folderCount; i++) {
+            // 앞쪽 폴더 아래에만 폴더를 두어 깊이가 생기게 함
+            Long parentId = i <= 10 ? null : (long) random.nextInt(Math.min(i - 1, folderCount / 10)) + 1;
+            entries.add(new Entry((long) i, parentId, WORDS[random.nextInt(WORDS.length)] + "-" + i, "folder"));
+        }
+        for (int i = folderCount + 1; i <= entryCount; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + "-" + (2000 + random.nextInt(30)) + "-"
+                    + String.format("%04d", random.nextInt(10_000)) + EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+            entries.add(new Entry((long) i, (long) random.nextInt(folderCount) + 1, name, "file"));
+        }
+
+        index = new FileNameIndex();
+        index.ensureLoaded(() -> entries);
+    }
+
+    @Benchmark
+    public List<FileSearchResult> search() {
+        return index.search(query, 50);
+    }
+
+    private record Entry(Long getId, Long getParentId, String getName, String getFileType) implements FileSearchEntryView {
+    }
+}
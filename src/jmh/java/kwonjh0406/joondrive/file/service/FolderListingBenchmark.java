@@ -0,0 +1,71 @@
+package kwonjh0406.joondrive.file.service;
+
+import kwonjh0406.joondrive.BenchmarkContext;
+import kwonjh0406.joondrive.file.repository.FileRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 폴더 목록 조회 + JSON 직렬화: 전체 목록(GET /api/files)과 커서 페이지(GET /api/files/page) 비교.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FolderListingBenchmark {
+
+    @Param({"5000"})
+    public int childCount;
+
+    private Path basePath;
+    private ConfigurableApplicationContext context;
+    private FileRepository fileRepository;
+    private FileListService fileListService;
+    private JsonMapper jsonMapper;
+    private Long userId;
+    private Long folderId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        basePath = Files.createTempDirectory("listing-bench");
+        context = BenchmarkContext.start(basePath);
+        fileRepository = context.getBean(FileRepository.class);
+        fileListService = context.getBean(FileListService.class);
+        jsonMapper = context.getBean(JsonMapper.class);
+        userId = BenchmarkContext.createUser(context, "listing-bench@joondrive.local");
+        folderId = context.getBean(FileService.class).createFolder(userId, null, "listing").getId();
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < childCount; i++) {
+            String name = "document-" + i + ".txt";
+            rows.add(new Object[]{userId, folderId, name, name, 1024L + i});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate(
+                "insert into file_entity (user_id, parent_id, file_type, name, logical_path, size, deleted)" +
+                        " values (?, ?, 'file', ?, ?, ?, false)", rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        BenchmarkContext.deleteRecursively(basePath);
+    }
+
+    @Benchmark
+    public byte[] listAll() {
+        return jsonMapper.writeValueAsBytes(fileRepository.findByUserIdAndParentId(userId, folderId));
+    }
+
+    @Benchmark
+    public byte[] listFirstPage() {
+        return jsonMapper.writeValueAsBytes(fileListService.listFiles(userId, folderId, "name", "asc", 100, null));
+    }
+}
@@ -0,0 +1,37 @@
+package kwonjh0406.joondrive.file.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 이름 충돌 해결(ZIP 항목, 폴더 내 업로드/폴더 생성): 같은 이름이 여러 번 들어올 때 이름을 정하는 비용.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NameConflictBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int collisions;
+
+    @Benchmark
+    public String resolveCollidingFileNames() {
+        UniqueNameAllocator names = new UniqueNameAllocator();
+        String last = null;
+        for (int i = 0; i < collisions; i++) {
+            last = names.allocate("photos/photo.jpg");
+        }
+        return last;
+    }
+
+    @Benchmark
+    public String resolveCollidingFolderNames() {
+        UniqueNameAllocator names = new UniqueNameAllocator();
+        String last = null;
+        for (int i = 0; i < collisions; i++) {
+            last = names.allocate("backup/");
+        }
+        return last;
+    }
+}
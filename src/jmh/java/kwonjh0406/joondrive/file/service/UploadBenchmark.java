@@ -0,0 +1,78 @@
+package kwonjh0406.joondrive.file.service;
+
+import kwonjh0406.joondrive.BenchmarkContext;
+import kwonjh0406.joondrive.file.dto.UploadResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 스트리밍 업로드 경로(수신 + 해시 + blob 등록 + 메타데이터/사용량 갱신) 처리량.
+ * 매번 내용이 다른 업로드(실제 쓰기)와 같은 내용의 업로드(중복 제거로 쓰기 생략)를 비교합니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UploadBenchmark {
+
+    @Param({"262144"})
+    public int fileSize;
+
+    private Path basePath;
+    private ConfigurableApplicationContext context;
+    private FileService fileService;
+    private JdbcTemplate jdbcTemplate;
+    private Long userId;
+    private byte[] content;
+    private long counter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        basePath = Files.createTempDirectory("upload-bench");
+        context = BenchmarkContext.start(basePath);
+        fileService = context.getBean(FileService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        userId = BenchmarkContext.createUser(context, "upload-bench@joondrive.local");
+
+        content = new byte[fileSize];
+        new Random(42).nextBytes(content);
+    }
+
+    // 반복마다 저장된 파일과 사용량을 비워 할당량/디스크가 차지 않도록 함
+    @TearDown(Level.Iteration)
+    public void reset() throws IOException {
+        jdbcTemplate.update("delete from file_closure");
+        jdbcTemplate.update("delete from file_entity");
+        jdbcTemplate.update("delete from blob_entity");
+        jdbcTemplate.update("update user set used_storage = 0");
+        BenchmarkContext.deleteRecursively(basePath.resolve("blobs"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        BenchmarkContext.deleteRecursively(basePath);
+    }
+
+    @Benchmark
+    public UploadResponse uploadUniqueContent() throws IOException {
+        // 앞 8바이트를 바꿔 매번 다른 해시가 되도록 함
+        long n = counter++;
+        for (int i = 0; i < 8; i++) {
+            content[i] = (byte) (n >>> (i * 8));
+        }
+        return fileService.uploadStream(userId, null, "bench.bin", content.length, new ByteArrayInputStream(content));
+    }
+
+    @Benchmark
+    public UploadResponse uploadDuplicateContent() throws IOException {
+        return fileService.uploadStream(userId, null, "bench.bin", content.length, new ByteArrayInputStream(content));
+    }
+}
@@ -0,0 +1,139 @@
+package kwonjh0406.joondrive.file.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kwonjh0406.joondrive.file.entity.FileEntity;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 폴더 ZIP 내보내기 처리량: 기존 단일 스레드 ZipOutputStream 방식과 ZipExportService 비교.
+ * 압축이 잘 되는 텍스트와 이미 압축된 사진(난수 바이트)을 섞은 폴더 하나를 내보냅니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ZipExportBenchmark {
+
+    @Param({"64"})
+    public int fileCount;
+
+    @Param({"1048576"})
+    public int fileSize;
+
+    private Path baseDir;
+    private ExecutorService zipExecutor;
+    private ZipExportService zipExportService;
+    private List<FileEntity> roots;
+    private FileTree tree;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        baseDir = Files.createTempDirectory("zip-bench");
+        zipExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        // 파일 행 재조회는 경로가 옮겨졌을 때만 쓰므로 저장소 없이 실행
+        zipExportService = new ZipExportService(zipExecutor, null, new SimpleMeterRegistry(), 64L * 1024 * 1024);
+
+        List<FileEntity> files = new ArrayList<>();
+        FileEntity folder = entity(1L, null, "folder", "export", null, 0);
+        files.add(folder);
+
+        Random random = new Random(42);
+        String line = "2025-01-01 12:00:00 INFO joondrive request handled in 12ms\n";
+        for (int i = 0; i < fileCount; i++) {
+            byte[] content = new byte[fileSize];
+            String name;
+            if (i % 2 == 0) {
+                byte[] text = line.repeat(fileSize / line.length() + 1).getBytes(StandardCharsets.UTF_8);
+                System.arraycopy(text, 0, content, 0, fileSize);
+                name = "log-" + i + ".txt";
+            } else {
+                random.nextBytes(content);
+                name = "photo-" + i + ".jpg";
+            }
+            Path path = baseDir.resolve(name);
+            Files.write(path, content);
+            files.add(entity(i + 2L, folder.getId(), "file", name, path, fileSize));
+        }
+
+        roots = List.of(folder);
+        tree = new FileTree(files);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        zipExecutor.shutdown();
+        try (Stream<Path> paths = Files.walk(baseDir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public void singleThreadDeflate() throws IOException {
+        ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(OutputStream.nullOutputStream(), 64 * 1024));
+        for (FileEntity root : roots) {
+            addToZip(zos, root, "");
+        }
+        zos.finish();
+        zos.flush();
+    }
+
+    @Benchmark
+    public void parallelExport() throws IOException {
+        zipExportService.writeZip(roots, tree, new BufferedOutputStream(OutputStream.nullOutputStream(), 64 * 1024));
+    }
+
+    // 기존 FileController.addToZip 과 같은 방식 (모든 항목을 기록 스레드에서 DEFLATE)
+    private void addToZip(ZipOutputStream zos, FileEntity file, String basePath) throws IOException {
+        String entryName = basePath + file.getName();
+        if ("folder".equals(file.getFileType())) {
+            entryName += "/";
+            zos.putNextEntry(new ZipEntry(entryName));
+            zos.closeEntry();
+            for (FileEntity child : tree.getChildren(file.getId())) {
+                addToZip(zos, child, entryName);
+            }
+            return;
+        }
+
+        zos.putNextEntry(new ZipEntry(entryName));
+        try (InputStream in = Files.newInputStream(Path.of(file.getRealPath()))) {
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = in.read(buffer)) > 0) {
+                zos.write(buffer, 0, length);
+            }
+        }
+        zos.closeEntry();
+    }
+
+    private static FileEntity entity(Long id, Long parentId, String fileType, String name, Path path, long size) {
+        FileEntity entity = new FileEntity();
+        entity.setId(id);
+        entity.setUserId(1L);
+        entity.setParentId(parentId);
+        entity.setFileType(fileType);
+        entity.setName(name);
+        entity.setSize(path == null ? 0L : size);
+        entity.setRealPath(path == null ? null : path.toString());
+        return entity;
+    }
+}
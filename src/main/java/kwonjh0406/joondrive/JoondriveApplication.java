@@ -2,8 +2,10 @@ package kwonjh0406.joondrive;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class JoondriveApplication {
 
 	static void main(String[] args) {
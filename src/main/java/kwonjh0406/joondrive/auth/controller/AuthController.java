@@ -1,9 +1,12 @@
 package kwonjh0406.joondrive.auth.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 import kwonjh0406.joondrive.auth.dto.EmailVerificationRequest;
 import kwonjh0406.joondrive.auth.dto.EmailVerificationResponse;
+import kwonjh0406.joondrive.auth.service.CurrentUserService;
 import kwonjh0406.joondrive.auth.service.EmailVerificationService;
+import kwonjh0406.joondrive.auth.service.UserInfoCache;
 import kwonjh0406.joondrive.auth.entity.User;
 import kwonjh0406.joondrive.dto.SignupRequest;
 import kwonjh0406.joondrive.global.ApiResponse;
@@ -28,9 +31,14 @@ public class AuthController {
 
     private final EmailVerificationService emailService;
 
+    private final CurrentUserService currentUserService;
+
+    private final UserInfoCache userInfoCache;
+
     @PostMapping("/verification-codes")
-    public ResponseEntity<ApiResponse<EmailVerificationResponse>> sendCode(@RequestBody EmailVerificationRequest request) {
-        int expiresIn = emailService.sendCode(request.getEmail());
+    public ResponseEntity<ApiResponse<EmailVerificationResponse>> sendCode(@RequestBody EmailVerificationRequest request,
+                                                                           HttpServletRequest httpRequest) {
+        int expiresIn = emailService.sendCode(request.getEmail(), httpRequest.getRemoteAddr());
         EmailVerificationResponse response = new EmailVerificationResponse(expiresIn);
         return ResponseEntity.ok(ApiResponse.ok(response, "인증번호가 발송되었습니다."));
     }
@@ -68,7 +76,7 @@ public class AuthController {
         return ResponseEntity.ok(Map.of(
                 "authenticated", true,
                 "email", authentication.getName(),
-                "storageLimit", userRepository.findByEmail(authentication.getName()).get().getStorageLimit(),
+                "storageLimit", userInfoCache.get(currentUserService.getUserId()).storageLimit(),
                 "usedStorage", 1
         ));
     }
@@ -1,9 +1,12 @@
 package kwonjh0406.joondrive.auth.entity;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import kwonjh0406.joondrive.auth.service.UserCacheEvictionListener;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
@@ -11,6 +14,7 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(UserCacheEvictionListener.class)
 @Getter
 @Setter
 public class User {
@@ -25,6 +29,10 @@ public class User {
     
     private Integer storageLimit = 10;
 
+    // 바이트 단위, 업로드/삭제 트랜잭션에서 함께 갱신된다
+    @Column(nullable = false)
+    private Long usedStorage = 0L;
+
     @CreationTimestamp
     private LocalDateTime createdAt;
 
@@ -0,0 +1,25 @@
+package kwonjh0406.joondrive.auth.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class CurrentUserService {
+
+    private final UserInfoCache userInfoCache;
+
+    /**
+     * 현재 로그인한 사용자의 ID. principal 에 담긴 값을 쓰므로 DB 를 조회하지 않습니다.
+     * (UserPrincipal 도입 전에 만들어진 세션은 캐시를 거쳐 이메일로 찾음)
+     */
+    public Long getUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.getId();
+        }
+        return userInfoCache.getByEmail(authentication.getName()).id();
+    }
+}
@@ -1,50 +1,66 @@
 package kwonjh0406.joondrive.auth.service;
 
 import kwonjh0406.joondrive.auth.exception.EmailAlreadyExistsException;
+import kwonjh0406.joondrive.auth.exception.TooManyRequestsException;
 import kwonjh0406.joondrive.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.Duration;
+import java.util.Locale;
 
 @Service
-@RequiredArgsConstructor
 public class EmailVerificationService {
 
-    private final JavaMailSender mailSender;
+    private final MailOutbox mailOutbox;
     private final UserRepository userRepository;
-    private final Map<String, CodeInfo> codeMap = new ConcurrentHashMap<>();
+    private final VerificationCodeStore codeStore;
+    private final SendRateLimiter emailSendRateLimiter;
+    private final SendRateLimiter ipSendRateLimiter;
 
     private static final int EXPIRE_SECONDS = 300;
 
-    public int sendCode(String email) {
+    public EmailVerificationService(MailOutbox mailOutbox,
+                                    UserRepository userRepository,
+                                    VerificationCodeStore codeStore,
+                                    @Qualifier("emailSendRateLimiter") SendRateLimiter emailSendRateLimiter,
+                                    @Qualifier("ipSendRateLimiter") SendRateLimiter ipSendRateLimiter) {
+        this.mailOutbox = mailOutbox;
+        this.userRepository = userRepository;
+        this.codeStore = codeStore;
+        this.emailSendRateLimiter = emailSendRateLimiter;
+        this.ipSendRateLimiter = ipSendRateLimiter;
+    }
+
+    public int sendCode(String email, String clientIp) {
+        if (email == null || email.isBlank()) {
+            throw new RuntimeException("이메일을 입력해주세요.");
+        }
+        // 대소문자/공백만 다른 주소로 발송 제한을 피하지 못하도록 정규화한 주소로 제한하고 저장
+        email = normalize(email);
+        // 가입 여부 조회와 메일 발송보다 먼저 확인 (무차별 발송/가입 여부 탐색 방지)
+        if (!ipSendRateLimiter.tryAcquire(clientIp) || !emailSendRateLimiter.tryAcquire(email)) {
+            throw new TooManyRequestsException("인증번호 요청이 너무 많습니다. 잠시 후 다시 시도하세요.");
+        }
         if (userRepository.existsByEmail(email)) {
             throw new EmailAlreadyExistsException("이미 가입된 이메일입니다.");
         }
 
         String code = generateCode();
-        codeMap.put(email, new CodeInfo(code, Instant.now()));
+        codeStore.save(email, code, Duration.ofSeconds(EXPIRE_SECONDS));
+        // SMTP 발송은 기다리지 않음 (실패하면 outbox 가 다시 시도)
         sendEmail(email, code);
 
         return EXPIRE_SECONDS;
     }
 
     public boolean verifyCode(String email, String code) {
-        CodeInfo codeInfo = codeMap.get(email);
-        if (codeInfo == null) return false;
-
-        if (isExpired(codeInfo)) {
-            codeMap.remove(email);
-            return false;
-        }
+        return codeStore.consume(normalize(email), code);
+    }
 
-        boolean isValid = codeInfo.code().equals(code);
-        if (isValid) codeMap.remove(email);
-        return isValid;
+    private static String normalize(String email) {
+        return email == null ? null : email.strip().toLowerCase(Locale.ROOT);
     }
 
     private String generateCode() {
@@ -57,13 +73,6 @@ public class EmailVerificationService {
         message.setSubject("[" + code + "] Joon Drive");
         message.setText("다음 인증번호를 입력하여 회원가입을 마무리하세요.\n\n" +
                 "인증번호: " + code);
-        mailSender.send(message);
-    }
-
-    private boolean isExpired(CodeInfo codeInfo) {
-        return java.time.Duration.between(codeInfo.createdAt(), Instant.now()).getSeconds() >= EXPIRE_SECONDS;
-    }
-
-    private record CodeInfo(String code, Instant createdAt) {
+        mailOutbox.enqueue(message);
     }
 }
@@ -0,0 +1,73 @@
+package kwonjh0406.joondrive.auth.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 노드 하나의 메모리에 두는 인증번호 저장소.
+ * 항목 수에 상한이 있어 넘치면 가장 오래된 인증번호부터 버리고, 만료된 인증번호는 주기적으로 정리합니다.
+ * 저장 순서를 유지하므로 만료 시간이 모두 같으면(EXPIRE_SECONDS) 정리할 때 오래된 쪽부터 만료되지 않은 항목을 만날 때까지만 봅니다.
+ */
+public class InMemoryVerificationCodeStore implements VerificationCodeStore {
+
+    private final Map<String, CodeEntry> codes;
+
+    public InMemoryVerificationCodeStore(int maxEntries) {
+        this.codes = new LinkedHashMap<>(256, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CodeEntry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public void save(String email, String code, Duration ttl) {
+        CodeEntry entry = new CodeEntry(code, System.nanoTime() + ttl.toNanos());
+        synchronized (codes) {
+            // 다시 발송하면 맨 뒤로 옮겨 저장 순서 = 만료 순서를 유지
+            codes.remove(email);
+            codes.put(email, entry);
+        }
+    }
+
+    @Override
+    public boolean consume(String email, String code) {
+        synchronized (codes) {
+            CodeEntry entry = codes.get(email);
+            if (entry == null) return false;
+
+            if (entry.isExpired(System.nanoTime())) {
+                codes.remove(email);
+                return false;
+            }
+
+            boolean isValid = entry.code().equals(code);
+            if (isValid) codes.remove(email);
+            return isValid;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.verification.sweep-interval:PT30S}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        synchronized (codes) {
+            Iterator<CodeEntry> iterator = codes.values().iterator();
+            while (iterator.hasNext()) {
+                if (!iterator.next().isExpired(now)) break;
+                iterator.remove();
+            }
+        }
+    }
+
+    private record CodeEntry(String code, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
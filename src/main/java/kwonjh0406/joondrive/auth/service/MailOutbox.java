@@ -0,0 +1,180 @@
+package kwonjh0406.joondrive.auth.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import kwonjh0406.joondrive.auth.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 메일 발송 대기열(프로세스 내 outbox).
+ * 요청 스레드는 메일을 대기열에 넣기만 하고, 작업 스레드가 모인 메일을 SMTP 연결 하나로 묶어 보냅니다.
+ * 보내지 못한 메일은 지수 백오프(지터 포함)로 다시 시도하며, 최대 시도 횟수를 넘기면 버립니다.
+ * 대기열은 메모리에만 있으므로 종료 시 아직 재시도 대기 중인 메일은 사라집니다. (인증번호는 다시 요청 가능)
+ */
+@Component
+public class MailOutbox implements SmartLifecycle {
+
+    private final JavaMailSender mailSender;
+    private final MeterRegistry meterRegistry;
+    private final int capacity;
+    private final int workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+
+    private final DelayQueue<OutboxMail> queue = new DelayQueue<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    public MailOutbox(JavaMailSender mailSender,
+                      MeterRegistry meterRegistry,
+                      @Value("${mail.outbox.capacity:10000}") int capacity,
+                      @Value("${mail.outbox.workers:2}") int workers,
+                      @Value("${mail.outbox.batch-size:50}") int batchSize,
+                      @Value("${mail.outbox.max-attempts:5}") int maxAttempts,
+                      @Value("${mail.outbox.initial-backoff:PT2S}") Duration initialBackoff,
+                      @Value("${mail.outbox.max-backoff:PT1M}") Duration maxBackoff) {
+        this.mailSender = mailSender;
+        this.meterRegistry = meterRegistry;
+        this.capacity = capacity;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        meterRegistry.gauge("joondrive.mail.outbox.size", queue, DelayQueue::size);
+    }
+
+    /**
+     * 메일을 대기열에 넣고 바로 반환합니다. 대기열이 가득 차 있으면 TooManyRequestsException.
+     */
+    public void enqueue(SimpleMailMessage message) {
+        if (queue.size() >= capacity) {
+            throw new TooManyRequestsException("메일 발송 요청이 많습니다. 잠시 후 다시 시도하세요.");
+        }
+        queue.add(new OutboxMail(message, 1, System.nanoTime()));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            threads.add(Thread.ofPlatform().name("mail-outbox-" + i).start(this::work));
+        }
+    }
+
+    @Override
+    public void stop() {
+        // 작업 스레드는 지금 보낼 수 있는 메일까지 보내고 종료
+        running = false;
+        for (Thread thread : threads) {
+            try {
+                thread.join(Duration.ofSeconds(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        threads.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void work() {
+        List<OutboxMail> batch = new ArrayList<>(batchSize);
+        while (true) {
+            OutboxMail first;
+            try {
+                first = running ? queue.poll(1, TimeUnit.SECONDS) : queue.poll();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (first == null) {
+                if (!running) return;
+                continue;
+            }
+
+            // 이미 보낼 때가 된 메일을 모아 연결 한 번으로 발송
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            send(batch);
+            batch.clear();
+        }
+    }
+
+    private void send(List<OutboxMail> batch) {
+        SimpleMailMessage[] messages = batch.stream().map(OutboxMail::message).toArray(SimpleMailMessage[]::new);
+        try {
+            mailSender.send(messages);
+            record("sent", batch.size());
+        } catch (MailParseException e) {
+            // 메일 내용 자체가 잘못된 경우는 다시 보내도 실패
+            record("dropped", batch.size());
+        } catch (MailSendException e) {
+            // 연결 실패면 모든 메일이, 일부 수신자 거부면 해당 메일만 실패 목록에 들어 있음
+            Map<Object, Exception> failed = e.getFailedMessages();
+            int sent = 0;
+            for (OutboxMail mail : batch) {
+                if (failed.isEmpty() || failed.containsKey(mail.message())) {
+                    retry(mail);
+                } else {
+                    sent++;
+                }
+            }
+            record("sent", sent);
+        } catch (MailException e) {
+            // 인증 실패 등 (설정이나 SMTP 서버 상태가 돌아오면 성공할 수 있음)
+            batch.forEach(this::retry);
+        }
+    }
+
+    private void retry(OutboxMail mail) {
+        if (mail.attempts() >= maxAttempts) {
+            record("dropped", 1);
+            return;
+        }
+        // 2^(시도 횟수-1) 배로 늘리되 상한을 두고, 절반 범위의 지터로 재시도 시점을 흩뜨림
+        long backoff = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(mail.attempts() - 1, 20));
+        long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        queue.add(new OutboxMail(mail.message(), mail.attempts() + 1, System.nanoTime() + delay));
+        record("retried", 1);
+    }
+
+    private void record(String result, int count) {
+        if (count > 0) {
+            meterRegistry.counter("joondrive.mail.outbox", "result", result).increment(count);
+        }
+    }
+
+    private record OutboxMail(SimpleMailMessage message, int attempts, long readyAt) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(readyAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(readyAt, ((OutboxMail) other).readyAt);
+        }
+    }
+}
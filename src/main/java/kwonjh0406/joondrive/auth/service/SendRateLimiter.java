@@ -0,0 +1,14 @@
+package kwonjh0406.joondrive.auth.service;
+
+/**
+ * 키(이메일, IP 등)별 요청 횟수 제한.
+ * 기본 구현은 노드 하나의 메모리에 두는 TokenBucketRateLimiter 이며,
+ * 여러 노드가 한도를 공유해야 하면 공유 저장소를 쓰는 구현으로 VerificationConfig 의 빈을 바꿉니다.
+ */
+public interface SendRateLimiter {
+
+    /**
+     * key 로 요청 한 번을 더 보낼 수 있으면 한도에서 차감하고 true 를 반환합니다.
+     */
+    boolean tryAcquire(String key);
+}
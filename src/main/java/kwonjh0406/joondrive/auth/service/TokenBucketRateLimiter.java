@@ -0,0 +1,75 @@
+package kwonjh0406.joondrive.auth.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 키별 토큰 버킷. 처음에는 capacity 번까지 바로 보낼 수 있고, 이후 refillPeriod 마다 한 번씩 다시 쓸 수 있게 됩니다.
+ * 버킷 수에 상한이 있어 넘치면 가장 오래 쓰이지 않은 키부터 버리고, 다시 가득 찬(기본값과 같은) 버킷은 주기적으로 정리합니다.
+ */
+public class TokenBucketRateLimiter implements SendRateLimiter {
+
+    private final int capacity;
+    private final long refillNanos;
+    private final Map<String, Bucket> buckets;
+
+    public TokenBucketRateLimiter(int capacity, Duration refillPeriod, int maxKeys) {
+        this.capacity = capacity;
+        this.refillNanos = refillPeriod.toNanos();
+        this.buckets = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                return size() > maxKeys;
+            }
+        };
+    }
+
+    @Override
+    public boolean tryAcquire(String key) {
+        long now = System.nanoTime();
+        synchronized (buckets) {
+            Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(capacity, now));
+            bucket.refill(now);
+            if (bucket.tokens == 0) return false;
+            bucket.tokens--;
+            return true;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.verification.sweep-interval:PT30S}")
+    public void evictFull() {
+        long now = System.nanoTime();
+        synchronized (buckets) {
+            buckets.values().removeIf(bucket -> {
+                bucket.refill(now);
+                return bucket.tokens == capacity;
+            });
+        }
+    }
+
+    private final class Bucket {
+        private int tokens;
+        private long refilledAt;
+
+        private Bucket(int tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+
+        // 지난 refillPeriod 수만큼 토큰을 채움 (남는 시간은 다음 채움에 이어짐)
+        private void refill(long now) {
+            long periods = (now - refilledAt) / refillNanos;
+            if (periods <= 0) return;
+            if (periods >= capacity - tokens) {
+                tokens = capacity;
+                refilledAt = now;
+            } else {
+                tokens += (int) periods;
+                refilledAt += periods * refillNanos;
+            }
+        }
+    }
+}
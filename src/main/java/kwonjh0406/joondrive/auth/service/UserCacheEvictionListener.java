@@ -0,0 +1,23 @@
+package kwonjh0406.joondrive.auth.service;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import kwonjh0406.joondrive.auth.entity.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+// User 엔티티가 수정/삭제되면 캐시된 사용자 정보를 비운다 (벌크 UPDATE 로 바뀌는 사용량은 캐시 대상이 아님)
+@Component
+@RequiredArgsConstructor
+public class UserCacheEvictionListener {
+
+    // 리스너는 EntityManagerFactory 초기화 중에 만들어지므로 캐시(→ UserRepository)는 지연 조회
+    private final ObjectProvider<UserInfoCache> userInfoCache;
+
+    @PostUpdate
+    @PostRemove
+    public void evict(User user) {
+        userInfoCache.getObject().evict(user.getId());
+    }
+}
@@ -3,26 +3,34 @@ package kwonjh0406.joondrive.auth.service;
 import kwonjh0406.joondrive.auth.entity.User;
 import kwonjh0406.joondrive.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserRepository userRepository;
 
+    // 운영 지표(/actuator/metrics)를 볼 수 있는 관리자 이메일 (쉼표로 구분, 기본값 없음)
+    @Value("${security.admin-emails:}")
+    private List<String> adminEmails;
+
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("사용자를 찾을 수 없습니다."));
 
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getEmail())
-                .password(user.getPassword())
-                .roles("USER")
-                .build();
+        // DB ID 를 principal 에 담아 이후 요청에서 사용자 조회를 생략
+        boolean admin = adminEmails.stream().anyMatch(adminEmail -> adminEmail.strip().equalsIgnoreCase(user.getEmail()));
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getPassword(), admin
+                ? AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN")
+                : AuthorityUtils.createAuthorityList("ROLE_USER"));
     }
 }
@@ -0,0 +1,64 @@
+package kwonjh0406.joondrive.auth.service;
+
+import kwonjh0406.joondrive.auth.entity.User;
+import kwonjh0406.joondrive.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 자주 바뀌지 않는 사용자 정보(ID, 이메일, 스토리지 한도)의 크기 제한 LRU 캐시.
+ * 사용량처럼 자주 바뀌는 값은 담지 않으며, User 엔티티가 수정/삭제되면 해당 항목을 비운다.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserInfoCache {
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final UserRepository userRepository;
+
+    private final Map<Long, UserInfo> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, UserInfo> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    public UserInfo get(Long userId) {
+        synchronized (cache) {
+            UserInfo cached = cache.get(userId);
+            if (cached != null) return cached;
+        }
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("사용자를 찾을 수 없습니다."));
+        return put(user);
+    }
+
+    // 이메일로 조회 (ID 가 없는 이전 세션의 principal 등). 결과는 ID 기준으로 캐시됨
+    public UserInfo getByEmail(String email) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("사용자를 찾을 수 없습니다."));
+        return put(user);
+    }
+
+    public void evict(Long userId) {
+        synchronized (cache) {
+            cache.remove(userId);
+        }
+    }
+
+    private UserInfo put(User user) {
+        UserInfo info = new UserInfo(user.getId(), user.getEmail(), user.getStorageLimit());
+        synchronized (cache) {
+            cache.put(user.getId(), info);
+        }
+        return info;
+    }
+
+    public record UserInfo(Long id, String email, Integer storageLimit) {
+    }
+}
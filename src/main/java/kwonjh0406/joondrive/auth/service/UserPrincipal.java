@@ -0,0 +1,25 @@
+package kwonjh0406.joondrive.auth.service;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * 로그인 사용자 정보. DB ID 를 함께 들고 있어 요청마다 사용자 테이블을 조회하지 않아도 된다.
+ * 스토리지 한도처럼 바뀔 수 있는 값은 로그인 시점 값을 들고 있지 않고 UserInfoCache 에서 읽는다.
+ */
+public class UserPrincipal extends User {
+
+    private final Long id;
+
+    public UserPrincipal(Long id, String email, String password,
+                         Collection<? extends GrantedAuthority> authorities) {
+        super(email, password, authorities);
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,23 @@
+package kwonjh0406.joondrive.auth.service;
+
+import java.time.Duration;
+
+/**
+ * 이메일 인증번호 저장소.
+ * 기본 구현은 노드 하나의 메모리에 두는 InMemoryVerificationCodeStore 이며,
+ * 여러 노드가 인증번호를 공유해야 하면 같은 계약(만료 시간이 지나면 사라짐, 확인 성공 시 삭제)을 지키는
+ * 공유 저장소 구현으로 VerificationConfig 의 빈을 바꿉니다.
+ */
+public interface VerificationCodeStore {
+
+    /**
+     * email 의 인증번호를 저장합니다. 이전 인증번호는 대체되며, ttl 이 지나면 확인할 수 없습니다.
+     */
+    void save(String email, String code, Duration ttl);
+
+    /**
+     * 만료되지 않은 인증번호가 code 와 같으면 삭제하고 true 를 반환합니다.
+     * 일치하지 않으면 인증번호를 남겨 두고, 만료된 인증번호는 삭제합니다.
+     */
+    boolean consume(String email, String code);
+}
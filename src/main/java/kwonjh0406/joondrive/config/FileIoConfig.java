@@ -0,0 +1,48 @@
+package kwonjh0406.joondrive.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class FileIoConfig {
+
+    /**
+     * 백그라운드 파일 작업(삭제 파일 회수, blob 정리 등)용 스레드 풀
+     * 작업마다 DB 커넥션을 잡는 경우가 많으므로(blob 정리 등) 가상 스레드 모드에서도 동시 실행 수를 storage.io.threads 로 제한해,
+     * 큰 정리 작업이 요청 처리에 쓸 커넥션 풀을 비우지 않게 함 (나머지 작업은 대기열에서 기다림)
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService fileIoExecutor(@Value("${storage.io.threads:4}") int threads,
+                                          @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            return Executors.newFixedThreadPool(threads, Thread.ofVirtual().name("file-io-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * ZIP 내보내기 항목 압축용 스레드 풀 (CPU 작업이므로 가상 스레드 모드에서도 코어 수 만큼의 플랫폼 스레드)
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService zipExecutor(@Value("${storage.zip.threads:0}") int threads) {
+        return Executors.newFixedThreadPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 미리보기 생성용 스레드 풀 (이미지 디코딩/축소는 CPU 와 메모리를 많이 쓰므로 스레드 수와 대기열 크기를 제한)
+     * 대기열이 가득 차면 RejectedExecutionException: 업로드 직후 생성은 건너뛰고, 요청 시 생성은 다시 시도하도록 응답
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService thumbnailExecutor(@Value("${storage.thumbnail.threads:2}") int threads,
+                                             @Value("${storage.thumbnail.queue-size:1000}") int queueSize) {
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), Thread.ofPlatform().name("thumbnail-", 0).factory());
+    }
+}
@@ -40,6 +40,8 @@ public class SecurityConfig {
                 // 인증/인가 영역 설정
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll()
+                        // 지표에는 다른 사용자의 요청 경로/파일 작업량이 드러나므로 관리자(security.admin-emails)만
+                        .requestMatchers("/actuator/metrics", "/actuator/metrics/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 // 로그인 처리
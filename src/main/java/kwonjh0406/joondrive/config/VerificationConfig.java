@@ -0,0 +1,44 @@
+package kwonjh0406.joondrive.config;
+
+import kwonjh0406.joondrive.auth.service.InMemoryVerificationCodeStore;
+import kwonjh0406.joondrive.auth.service.SendRateLimiter;
+import kwonjh0406.joondrive.auth.service.TokenBucketRateLimiter;
+import kwonjh0406.joondrive.auth.service.VerificationCodeStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 이메일 인증번호 저장소와 발송 횟수 제한.
+ * 지금은 노드별 메모리 구현을 쓰며, 여러 노드로 띄울 때는 같은 인터페이스의 공유 저장소 구현으로 바꿉니다.
+ */
+@Configuration
+public class VerificationConfig {
+
+    @Bean
+    public VerificationCodeStore verificationCodeStore(@Value("${auth.verification.max-codes:100000}") int maxCodes) {
+        return new InMemoryVerificationCodeStore(maxCodes);
+    }
+
+    /**
+     * 이메일 하나로 받을 수 있는 인증번호 수 (기본: 연속 3번, 이후 1분에 한 번)
+     */
+    @Bean
+    public SendRateLimiter emailSendRateLimiter(@Value("${auth.verification.rate.email.capacity:3}") int capacity,
+                                                @Value("${auth.verification.rate.email.refill-period:PT1M}") Duration refillPeriod,
+                                                @Value("${auth.verification.rate.max-keys:100000}") int maxKeys) {
+        return new TokenBucketRateLimiter(capacity, refillPeriod, maxKeys);
+    }
+
+    /**
+     * IP 하나에서 요청할 수 있는 인증번호 수 (기본: 연속 10번, 이후 30초에 한 번)
+     */
+    @Bean
+    public SendRateLimiter ipSendRateLimiter(@Value("${auth.verification.rate.ip.capacity:10}") int capacity,
+                                             @Value("${auth.verification.rate.ip.refill-period:PT30S}") Duration refillPeriod,
+                                             @Value("${auth.verification.rate.max-keys:100000}") int maxKeys) {
+        return new TokenBucketRateLimiter(capacity, refillPeriod, maxKeys);
+    }
+}
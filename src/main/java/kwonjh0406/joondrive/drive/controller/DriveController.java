@@ -1,14 +1,11 @@
 package kwonjh0406.joondrive.drive.controller;
 
-import kwonjh0406.joondrive.auth.entity.User;
+import kwonjh0406.joondrive.auth.service.CurrentUserService;
 import kwonjh0406.joondrive.drive.dto.DriveInfoResponse;
 import kwonjh0406.joondrive.drive.service.DriveService;
 import kwonjh0406.joondrive.global.ApiResponse;
-import kwonjh0406.joondrive.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -21,7 +18,7 @@ import java.io.IOException;
 public class DriveController {
 
     private final DriveService driveService;
-    private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
 
     @GetMapping("/me")
     public ResponseEntity<ApiResponse<DriveInfoResponse>> getDriveInfo() throws IOException {
@@ -31,9 +28,6 @@ public class DriveController {
     }
 
     private Long getUserId() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User user = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("사용자를 찾을 수 없습니다."));
-        return user.getId();
+        return currentUserService.getUserId();
     }
 }
@@ -1,45 +1,39 @@
 package kwonjh0406.joondrive.drive.service;
 
-import kwonjh0406.joondrive.auth.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import kwonjh0406.joondrive.auth.service.UserInfoCache;
+import kwonjh0406.joondrive.auth.service.UserInfoCache.UserInfo;
 import kwonjh0406.joondrive.drive.dto.DriveInfoResponse;
+import kwonjh0406.joondrive.file.repository.FileRepository;
 import kwonjh0406.joondrive.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 
 @Service
 @RequiredArgsConstructor
 public class DriveService {
 
-    @Value("${storage.base-path}")
-    private String BASE_STORAGE_PATH;
-
     private final UserRepository userRepository;
+    private final UserInfoCache userInfoCache;
+    private final FileRepository fileRepository;
+    private final MeterRegistry meterRegistry;
 
     public DriveInfoResponse getDriveInfo(Long userId) throws IOException {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("사용자를 찾을 수 없습니다."));
+        UserInfo user = userInfoCache.get(userId);
 
-        // 사용자 폴더 경로: /joondrive/{userId}
-        Path userFolderPath = Paths.get(BASE_STORAGE_PATH).resolve(userId.toString());
-        
-        // 폴더가 존재하지 않으면 사용량은 0
-        long usedStorage = 0;
-        if (Files.exists(userFolderPath)) {
-            usedStorage = calculateFolderSize(userFolderPath);
-        }
+        // 사용량은 업로드/삭제 시 갱신되는 User.usedStorage 값을 그대로 사용
+        long usedStorage = getUsedStorage(userId);
 
         return new DriveInfoResponse(
-                user.getEmail(),
+                user.email(),
                 usedStorage,
-                user.getStorageLimit()
+                user.storageLimit()
         );
     }
 
@@ -48,14 +42,9 @@ public class DriveService {
      * @param userId 사용자 ID
      * @return 현재 사용량 (바이트)
      */
-    public long getUsedStorage(Long userId) throws IOException {
-        Path userFolderPath = Paths.get(BASE_STORAGE_PATH).resolve(userId.toString());
-        
-        if (!Files.exists(userFolderPath)) {
-            return 0;
-        }
-        
-        return calculateFolderSize(userFolderPath);
+    public long getUsedStorage(Long userId) {
+        return userRepository.findUsedStorageById(userId)
+                .orElseThrow(() -> new RuntimeException("사용자를 찾을 수 없습니다."));
     }
 
     /**
@@ -64,52 +53,66 @@ public class DriveService {
      * @return 스토리지 한도 (바이트, GB 단위를 바이트로 변환)
      */
     public long getStorageLimit(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("사용자를 찾을 수 없습니다."));
-        
+        // 자주 바뀌지 않는 값이므로 캐시에서 조회
+        UserInfo user = userInfoCache.get(userId);
+
         // GB를 바이트로 변환
-        return (long) user.getStorageLimit() * 1024L * 1024L * 1024L;
+        return (long) user.storageLimit() * 1024L * 1024L * 1024L;
     }
 
     /**
-     * 리눅스 du 명령어를 사용하여 폴더의 총 크기를 한 번에 계산합니다.
-     * @param folderPath 계산할 폴더 경로
-     * @return 폴더의 총 크기 (바이트)
+     * 사용량을 증가시킵니다. 호출한 쪽의 트랜잭션(업로드)에 함께 묶입니다.
+     * @param userId 사용자 ID
+     * @param bytes 증가량 (바이트)
      */
-    private long calculateFolderSize(Path folderPath) throws IOException {
-        if (!Files.exists(folderPath) || !Files.isDirectory(folderPath)) {
-            return 0;
-        }
+    @Transactional
+    public void increaseUsedStorage(Long userId, long bytes) {
+        if (bytes == 0) return;
+        userRepository.addUsedStorage(userId, bytes);
+    }
 
-        try {
-            // du -sb: 바이트 단위로 총 크기만 출력
-            ProcessBuilder processBuilder = new ProcessBuilder("du", "-sb", folderPath.toString());
-            Process process = processBuilder.start();
-            
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream()))) {
-                String line = reader.readLine();
-                if (line != null) {
-                    // 출력 형식: "크기    경로"
-                    String[] parts = line.split("\\s+");
-                    if (parts.length > 0) {
-                        return Long.parseLong(parts[0]);
-                    }
-                }
-            }
-            
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                throw new IOException("du 명령어 실행 실패: exit code " + exitCode);
+    /**
+     * 사용량을 감소시킵니다. 호출한 쪽의 트랜잭션(삭제)에 함께 묶입니다.
+     * @param userId 사용자 ID
+     * @param bytes 감소량 (바이트)
+     */
+    @Transactional
+    public void decreaseUsedStorage(Long userId, long bytes) {
+        if (bytes == 0) return;
+        userRepository.addUsedStorage(userId, -bytes);
+    }
+
+    /**
+     * 사용자 행을 호출한 쪽 트랜잭션이 끝날 때까지 잠급니다.
+     * 업로드 등록은 어차피 사용량 갱신으로 이 행을 커밋까지 잠그므로, 이름을 정하기 전에 미리 잠가도 대기가 늘지 않습니다.
+     * @param userId 사용자 ID
+     */
+    @Transactional
+    public void lockUser(Long userId) {
+        userRepository.lockById(userId);
+    }
+
+    /**
+     * 사용량 장부 도입 전부터 있던 사용자의 장부를 채웁니다.
+     * 장부가 0 인 사용자만 채우므로 매 기동 시 실행해도 이미 쓰고 있는 장부는 건드리지 않습니다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillUsedStorage() {
+        userRepository.backfillUsedStorage();
+    }
+
+    /**
+     * 파일 메타데이터 기준 실제 사용량과 사용량 장부를 주기적으로 맞춥니다.
+     * (blob 은 사용자 간에 공유되므로 디스크가 아닌 각 파일의 논리 크기 합계를 기준으로 함)
+     * storage.usage.reconcile-cron 이 설정된 경우에만 동작합니다. (기본값 "-" 는 비활성화)
+     * 보정 도중 진행 중이던 업로드의 증감분은 다음 보정 때 반영됩니다.
+     */
+    @Scheduled(cron = "${storage.usage.reconcile-cron:-}")
+    public void reconcileUsedStorage() {
+        meterRegistry.timer("joondrive.usage.reconcile").record(() -> {
+            for (Long userId : userRepository.findAllIds()) {
+                userRepository.updateUsedStorage(userId, fileRepository.sumFileSizeByUserId(userId));
             }
-            
-            return 0;
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("du 명령어 실행 중 인터럽트 발생", e);
-        } catch (NumberFormatException e) {
-            throw new IOException("du 명령어 출력 파싱 실패", e);
-        }
+        });
     }
 }
-
@@ -0,0 +1,48 @@
+package kwonjh0406.joondrive.drive.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * StorageQuotaService 에서 받은 용량 예약.
+ * 성공 시 사용량 장부에 반영한 뒤 commit(), 실패 시 release() 를 호출합니다. 두 번 이상 호출해도 한 번만 풀립니다.
+ */
+public class QuotaReservation {
+
+    private final StorageQuotaService storageQuotaService;
+    private final Long userId;
+    private final long bytes;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    QuotaReservation(StorageQuotaService storageQuotaService, Long userId, long bytes) {
+        this.storageQuotaService = storageQuotaService;
+        this.userId = userId;
+        this.bytes = bytes;
+    }
+
+    /**
+     * 사용량 장부에 반영했으므로 예약을 넘깁니다.
+     * 트랜잭션 안이면 커밋(또는 롤백)이 끝난 뒤에 풀어서, 장부 증가분이 보이기 전에 예약이 먼저 사라지지 않게 합니다.
+     */
+    public void commit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    release();
+                }
+            });
+        } else {
+            release();
+        }
+    }
+
+    // 업로드 실패: 예약을 바로 풀어줌
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            storageQuotaService.release(userId, bytes);
+        }
+    }
+}
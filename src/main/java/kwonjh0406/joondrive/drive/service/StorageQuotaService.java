@@ -0,0 +1,71 @@
+package kwonjh0406.joondrive.drive.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import kwonjh0406.joondrive.file.exception.StorageLimitExceededException;
+import kwonjh0406.joondrive.file.repository.UploadSessionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 업로드 중인 용량을 사용자별로 미리 예약해 두는 장부.
+ * 한도 검사는 (확정된 사용량 + 진행 중인 분할 업로드 세션 크기 + 진행 중인 예약량) 기준이고, 예약은 사용자별 AtomicLong 에 CAS 로 더하므로
+ * 같은 사용자의 동시 업로드가 함께 한도를 넘지 못하고, 다른 사용자끼리는 서로 기다리지 않습니다.
+ * 예약은 이 서버의 메모리에만 있으므로 업로드 도중 재시작되면 함께 사라집니다. (업로드도 같이 실패함)
+ * 여러 요청에 걸친 분할 업로드는 DB 의 세션 행이 용량을 잡고 있으므로 재시작 후에도 유지됩니다.
+ */
+@Service
+@RequiredArgsConstructor
+public class StorageQuotaService {
+
+    private final DriveService driveService;
+    private final UploadSessionRepository uploadSessionRepository;
+    private final MeterRegistry meterRegistry;
+
+    // 사용자별 예약량 (항목은 지우지 않음: 지우는 순간 다른 스레드가 잡고 있던 카운터가 장부에서 빠질 수 있음)
+    private final ConcurrentHashMap<Long, AtomicLong> reservedByUser = new ConcurrentHashMap<>();
+
+    /**
+     * 업로드할 용량을 예약합니다. 한도를 넘으면 StorageLimitExceededException 이 발생합니다.
+     * 확정된 사용량은 호출한 쪽 트랜잭션의 스냅샷이 아닌 최신 값을 읽어야 하므로 트랜잭션 밖에서 조회합니다.
+     * 트랜잭션 안에서 부르면 그 커넥션을 잡은 채로 커넥션을 하나 더 쓰므로, 호출한 쪽은 예약한 뒤에 쓰기 트랜잭션을 엽니다.
+     * @return 업로드 성공 시 commit(), 실패 시 release() 해야 하는 예약
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public QuotaReservation reserve(Long userId, long bytes) {
+        AtomicLong reserved = reservedByUser.computeIfAbsent(userId, id -> new AtomicLong());
+        long storageLimit = driveService.getStorageLimit(userId);
+
+        while (true) {
+            // 예약량을 먼저 읽고 사용량을 읽음: 그 사이 다른 업로드가 확정되어 예약을 풀었다면 CAS 가 실패해 다시 읽음
+            long currentReserved = reserved.get();
+            long currentUsedStorage = driveService.getUsedStorage(userId) + uploadSessionRepository.sumTotalSizeByUserId(userId);
+
+            if (currentUsedStorage + currentReserved + bytes > storageLimit) {
+                meterRegistry.counter("joondrive.quota.rejections").increment();
+                long availableSpace = Math.max(0, storageLimit - currentUsedStorage - currentReserved);
+                throw new StorageLimitExceededException(
+                        String.format("스토리지 한도를 초과합니다. 사용 가능한 용량: %d 바이트 (%.2f MB)",
+                                availableSpace, availableSpace / (1024.0 * 1024.0))
+                );
+            }
+            if (reserved.compareAndSet(currentReserved, currentReserved + bytes)) {
+                return new QuotaReservation(this, userId, bytes);
+            }
+        }
+    }
+
+    // 현재 진행 중인 업로드가 예약해 둔 용량
+    public long getReservedStorage(Long userId) {
+        AtomicLong reserved = reservedByUser.get(userId);
+        return reserved == null ? 0 : reserved.get();
+    }
+
+    void release(Long userId, long bytes) {
+        reservedByUser.get(userId).addAndGet(-bytes);
+    }
+}
@@ -0,0 +1,70 @@
+package kwonjh0406.joondrive.file.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import kwonjh0406.joondrive.auth.service.CurrentUserService;
+import kwonjh0406.joondrive.file.dto.CreateUploadSessionRequest;
+import kwonjh0406.joondrive.file.dto.UploadSessionResponse;
+import kwonjh0406.joondrive.file.entity.FileEntity;
+import kwonjh0406.joondrive.file.service.UploadSessionService;
+import kwonjh0406.joondrive.global.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/files/uploads")
+public class UploadSessionController {
+
+    private final UploadSessionService uploadSessionService;
+    private final CurrentUserService currentUserService;
+
+    // 분할 업로드 세션 생성
+    @PostMapping
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> createSession(@RequestBody CreateUploadSessionRequest request) throws IOException {
+        Long userId = getUserId();
+        UploadSessionResponse response = uploadSessionService.createSession(userId, request);
+        return ResponseEntity.ok(ApiResponse.ok(response, "업로드 세션 생성 완료"));
+    }
+
+    // 수신 현황 조회 (이어받기용)
+    @GetMapping("/{sessionId}")
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> getSession(@PathVariable String sessionId) {
+        Long userId = getUserId();
+        UploadSessionResponse response = uploadSessionService.getSession(userId, sessionId);
+        return ResponseEntity.ok(ApiResponse.ok(response, "업로드 세션 조회 성공"));
+    }
+
+    // 조각 업로드 (요청 본문 = 조각 내용, 순서 무관/병렬 가능)
+    @PutMapping("/{sessionId}")
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> uploadChunk(@PathVariable String sessionId,
+                                                                          @RequestParam long offset,
+                                                                          HttpServletRequest req) throws IOException {
+        Long userId = getUserId();
+        UploadSessionResponse response = uploadSessionService.writeChunk(userId, sessionId, offset,
+                req.getContentLengthLong(), req.getInputStream());
+        return ResponseEntity.ok(ApiResponse.ok(response, "조각 업로드 완료"));
+    }
+
+    // 업로드 완료 (파일 등록)
+    @PostMapping("/{sessionId}/commit")
+    public ResponseEntity<ApiResponse<FileEntity>> commit(@PathVariable String sessionId) throws IOException {
+        Long userId = getUserId();
+        FileEntity file = uploadSessionService.commit(userId, sessionId);
+        return ResponseEntity.ok(ApiResponse.ok(file, "업로드 완료"));
+    }
+
+    // 업로드 취소
+    @DeleteMapping("/{sessionId}")
+    public ResponseEntity<ApiResponse<Void>> abort(@PathVariable String sessionId) throws IOException {
+        Long userId = getUserId();
+        uploadSessionService.abort(userId, sessionId);
+        return ResponseEntity.ok(ApiResponse.ok(null, "업로드 취소 완료"));
+    }
+
+    private Long getUserId() {
+        return currentUserService.getUserId();
+    }
+}
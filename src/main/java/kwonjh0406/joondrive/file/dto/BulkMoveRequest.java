@@ -0,0 +1,24 @@
+package kwonjh0406.joondrive.file.dto;
+
+import java.util.List;
+
+public class BulkMoveRequest {
+    private List<Long> fileIds;
+    private Long newParentId;
+
+    public List<Long> getFileIds() {
+        return fileIds;
+    }
+
+    public void setFileIds(List<Long> fileIds) {
+        this.fileIds = fileIds;
+    }
+
+    public Long getNewParentId() {
+        return newParentId;
+    }
+
+    public void setNewParentId(Long newParentId) {
+        this.newParentId = newParentId;
+    }
+}
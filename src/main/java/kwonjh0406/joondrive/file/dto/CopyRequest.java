@@ -0,0 +1,24 @@
+package kwonjh0406.joondrive.file.dto;
+
+import java.util.List;
+
+public class CopyRequest {
+    private List<Long> fileIds;
+    private Long targetParentId;
+
+    public List<Long> getFileIds() {
+        return fileIds;
+    }
+
+    public void setFileIds(List<Long> fileIds) {
+        this.fileIds = fileIds;
+    }
+
+    public Long getTargetParentId() {
+        return targetParentId;
+    }
+
+    public void setTargetParentId(Long targetParentId) {
+        this.targetParentId = targetParentId;
+    }
+}
@@ -0,0 +1,12 @@
+package kwonjh0406.joondrive.file.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@NoArgsConstructor
+public class CreateUploadSessionRequest {
+    private String fileName;
+    private Long size; // 바이트 단위
+    private Long parentId;
+}
@@ -0,0 +1,20 @@
+package kwonjh0406.joondrive.file.dto;
+
+import kwonjh0406.joondrive.file.repository.FileListItemView;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 목록 화면에 필요한 필드만 담은 응답 (실제 저장 경로 등은 제외)
+@Getter
+@AllArgsConstructor
+public class FileListItemResponse {
+    private Long id;
+    private Long parentId;
+    private String name;
+    private String fileType;
+    private Long size; // 바이트 단위
+
+    public static FileListItemResponse from(FileListItemView file) {
+        return new FileListItemResponse(file.getId(), file.getParentId(), file.getName(), file.getFileType(), file.getSize());
+    }
+}
@@ -0,0 +1,14 @@
+package kwonjh0406.joondrive.file.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class FileListPageResponse {
+    private List<FileListItemResponse> items;
+    private String nextCursor; // 다음 페이지 요청 시 그대로 전달 (마지막 페이지면 null)
+    private boolean hasNext;
+}
@@ -0,0 +1,15 @@
+package kwonjh0406.joondrive.file.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 이름 검색 결과 (path: 최상위부터의 경로, 예: "/문서/2025/보고서.pdf")
+@Getter
+@AllArgsConstructor
+public class FileSearchResult {
+    private Long id;
+    private Long parentId;
+    private String name;
+    private String fileType;
+    private String path;
+}
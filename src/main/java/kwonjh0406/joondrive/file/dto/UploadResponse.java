@@ -0,0 +1,19 @@
+package kwonjh0406.joondrive.file.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class UploadResponse {
+    private int fileCount;
+    private long totalBytes; // 바이트 단위
+    private long elapsedMillis;
+    private long bytesPerSecond;
+
+    public static UploadResponse of(int fileCount, long totalBytes, long elapsedNanos) {
+        long elapsedMillis = elapsedNanos / 1_000_000;
+        long bytesPerSecond = elapsedNanos > 0 ? (long) (totalBytes * 1_000_000_000.0 / elapsedNanos) : totalBytes;
+        return new UploadResponse(fileCount, totalBytes, elapsedMillis, bytesPerSecond);
+    }
+}
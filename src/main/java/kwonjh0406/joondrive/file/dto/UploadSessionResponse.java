@@ -0,0 +1,18 @@
+package kwonjh0406.joondrive.file.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class UploadSessionResponse {
+    private String sessionId;
+    private long totalSize; // 바이트 단위
+    private long receivedBytes; // 바이트 단위
+    private List<ReceivedRange> receivedRanges; // 수신 완료 구간 (끝 오프셋은 미포함)
+
+    public record ReceivedRange(long start, long end) {
+    }
+}
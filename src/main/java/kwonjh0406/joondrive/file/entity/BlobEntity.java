@@ -0,0 +1,26 @@
+package kwonjh0406.joondrive.file.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.Setter;
+
+// 내용(SHA-256) 기준으로 한 번만 저장되는 실제 파일. 여러 FileEntity 가 같은 blob 을 가리킬 수 있다
+@Entity
+@Getter
+@Setter
+public class BlobEntity {
+
+    @Id
+    private String hash; // SHA-256 (hex)
+
+    private String path;
+
+    private Long size; // 바이트 단위 (원본 기준)
+
+    // 디스크에 저장된 형식: null 이면 원본 그대로, "gzip" 이면 압축 저장
+    private String codec;
+
+    // 이 blob 을 가리키는 FileEntity 수. 0 이 되면 정리 대상
+    private Long refCount;
+}
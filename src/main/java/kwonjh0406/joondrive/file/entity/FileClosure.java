@@ -0,0 +1,26 @@
+package kwonjh0406.joondrive.file.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+// 조상-자손 관계 테이블 (closure table). 자기 자신과의 관계(depth 0)도 포함한다
+@Entity
+@Table(indexes = {
+        @Index(name = "uk_file_closure_ancestor_descendant", columnList = "ancestorId, descendantId", unique = true),
+        @Index(name = "idx_file_closure_descendant", columnList = "descendantId, depth")
+})
+@Getter
+@Setter
+public class FileClosure {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long ancestorId;
+
+    private Long descendantId;
+
+    private Integer depth;
+}
@@ -1,36 +1,37 @@
 package kwonjh0406.joondrive.file.entity;
 
 import jakarta.servlet.http.HttpServletRequest;
-import kwonjh0406.joondrive.auth.entity.User;
-import kwonjh0406.joondrive.drive.service.DriveService;
+import jakarta.servlet.http.HttpServletResponse;
+import kwonjh0406.joondrive.auth.service.CurrentUserService;
+import kwonjh0406.joondrive.file.dto.BulkMoveRequest;
+import kwonjh0406.joondrive.file.dto.CopyRequest;
+import kwonjh0406.joondrive.file.dto.FileListPageResponse;
+import kwonjh0406.joondrive.file.dto.FileSearchResult;
 import kwonjh0406.joondrive.file.dto.MoveRequest;
-import kwonjh0406.joondrive.file.exception.StorageLimitExceededException;
+import kwonjh0406.joondrive.file.dto.UploadResponse;
 import kwonjh0406.joondrive.file.repository.FileRepository;
-import kwonjh0406.joondrive.repository.UserRepository;
+import kwonjh0406.joondrive.file.service.FileDownloadService;
+import kwonjh0406.joondrive.file.service.FileListService;
+import kwonjh0406.joondrive.file.service.FileSearchService;
+import kwonjh0406.joondrive.file.service.FileService;
+import kwonjh0406.joondrive.file.service.FileTree;
+import kwonjh0406.joondrive.file.service.ThumbnailService;
+import kwonjh0406.joondrive.file.service.ZipExportService;
+import kwonjh0406.joondrive.global.ApiResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayOutputStream;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 @RestController
 @RequiredArgsConstructor
@@ -38,17 +39,13 @@ import java.util.zip.ZipOutputStream;
 class FileController {
 
     private final FileRepository fileRepository;
-
-    @Value("${storage.base-path}")
-    private String BASE_STORAGE_PATH;
-    private final UserRepository userRepository;
-    private final DriveService driveService;
-
-    private Path getUserBasePath(Long userId) throws IOException {
-        Path base = Paths.get(BASE_STORAGE_PATH).resolve(userId.toString());
-        if (!Files.exists(base)) Files.createDirectories(base);
-        return base;
-    }
+    private final CurrentUserService currentUserService;
+    private final FileService fileService;
+    private final FileDownloadService fileDownloadService;
+    private final FileListService fileListService;
+    private final ZipExportService zipExportService;
+    private final ThumbnailService thumbnailService;
+    private final FileSearchService fileSearchService;
 
     // 파일 조회
     @GetMapping
@@ -58,84 +55,59 @@ class FileController {
         return ResponseEntity.ok(files);
     }
 
-    // 파일 업로드
-    @PostMapping("/upload")
-    public ResponseEntity<String> uploadFiles(@RequestParam("files") List<MultipartFile> files,
-                                              @RequestParam(required = false) Long parentId,
-                                              HttpServletRequest req) throws IOException {
+    // 파일 조회 (커서 기반 페이지네이션, 정렬: name / type / size)
+    @GetMapping("/page")
+    public ResponseEntity<FileListPageResponse> listFilesPage(@RequestParam(required = false) Long parentId,
+                                                              @RequestParam(defaultValue = "name") String sort,
+                                                              @RequestParam(defaultValue = "asc") String direction,
+                                                              @RequestParam(required = false) Integer size,
+                                                              @RequestParam(required = false) String cursor,
+                                                              HttpServletRequest req) {
         Long userId = getUserId();
-        
-        // 업로드할 파일들의 총 크기 계산
-        long totalUploadSize = files.stream()
-                .filter(file -> !file.isEmpty())
-                .mapToLong(MultipartFile::getSize)
-                .sum();
-        
-        // 현재 사용량과 한도 확인
-        long currentUsedStorage = driveService.getUsedStorage(userId);
-        long storageLimit = driveService.getStorageLimit(userId);
-        
-        // 업로드 후 예상 사용량이 한도를 초과하는지 검증
-        if (currentUsedStorage + totalUploadSize > storageLimit) {
-            long availableSpace = storageLimit - currentUsedStorage;
-            throw new StorageLimitExceededException(
-                    String.format("스토리지 한도를 초과합니다. 사용 가능한 용량: %d 바이트 (%.2f MB)", 
-                            availableSpace, availableSpace / (1024.0 * 1024.0))
-            );
-        }
-        
-        Path userBase = getUserBasePath(userId);
-
-        for (MultipartFile multipartFile : files) {
-            if (multipartFile.isEmpty()) continue;
-
-            String originalName = StringUtils.cleanPath(multipartFile.getOriginalFilename());
-            String ext = "";
-            int dotIndex = originalName.lastIndexOf('.');
-            if (dotIndex > 0) ext = originalName.substring(dotIndex);
-
-            String uniqueName = UUID.randomUUID() + ext;
-            Path filePath = userBase.resolve(uniqueName);
-
-            try (FileOutputStream fos = new FileOutputStream(filePath.toFile())) {
-                fos.write(multipartFile.getBytes());
-            }
+        return ResponseEntity.ok(fileListService.listFiles(userId, parentId, sort, direction, size, cursor));
+    }
 
-            FileEntity file = new FileEntity();
-            file.setUserId(userId);
-            file.setParentId(parentId);
-            file.setFileType("file");
-            file.setName(originalName);
-            file.setLogicalPath(originalName);
-            file.setRealPath(filePath.toString());
-            file.setSize(multipartFile.getSize());
+    // 이름 검색 (결과마다 최상위부터의 경로 포함)
+    @GetMapping("/search")
+    public ResponseEntity<List<FileSearchResult>> searchFiles(@RequestParam("q") String query,
+                                                              @RequestParam(required = false) Integer limit,
+                                                              HttpServletRequest req) {
+        Long userId = getUserId();
+        return ResponseEntity.ok(fileSearchService.search(userId, query, limit));
+    }
 
-            fileRepository.save(file);
-        }
+    // 파일 업로드
+    @PostMapping("/upload")
+    public ResponseEntity<ApiResponse<UploadResponse>> uploadFiles(@RequestParam("files") List<MultipartFile> files,
+                                                                   @RequestParam(required = false) Long parentId,
+                                                                   HttpServletRequest req) throws IOException {
+        Long userId = getUserId();
+        UploadResponse response = fileService.uploadFiles(userId, parentId, files);
+        return ResponseEntity.ok(ApiResponse.ok(response, "업로드 완료"));
+    }
 
-        return ResponseEntity.ok("업로드 완료");
+    // 단일 파일 스트리밍 업로드 (요청 본문 = 파일 내용, Content-Type: application/octet-stream)
+    @PutMapping("/upload")
+    public ResponseEntity<ApiResponse<UploadResponse>> uploadFileStream(@RequestParam String name,
+                                                                        @RequestParam(required = false) Long parentId,
+                                                                        HttpServletRequest req) throws IOException {
+        Long userId = getUserId();
+        UploadResponse response = fileService.uploadStream(userId, parentId, name,
+                req.getContentLengthLong(), req.getInputStream());
+        return ResponseEntity.ok(ApiResponse.ok(response, "업로드 완료"));
     }
 
-    // 파일 삭제
+    // 파일 삭제 (하위 항목 포함, 실제 정리는 백그라운드에서 수행)
     @PostMapping("/delete")
-    public ResponseEntity<String> deleteFiles(@RequestBody List<Long> ids, HttpServletRequest req) throws IOException {
+    public ResponseEntity<String> deleteFiles(@RequestBody List<Long> ids, HttpServletRequest req) {
         Long userId = getUserId();
-        List<FileEntity> files = fileRepository.findAllById(ids);
-
-        for (FileEntity file : files) {
-            if (!file.getUserId().equals(userId)) continue;
-            if ("file".equals(file.getFileType()) && file.getRealPath() != null) {
-                Path path = Paths.get(file.getRealPath());
-                Files.deleteIfExists(path);
-            }
-            fileRepository.delete(file);
-        }
+        fileService.deleteFiles(userId, ids);
         return ResponseEntity.ok("삭제 완료");
     }
 
-    // 파일 다운로드
+    // 파일 다운로드 (Range / ETag / 조건부 GET 지원)
     @GetMapping("/download/{fileId}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable Long fileId, HttpServletRequest req) throws IOException {
+    public void downloadFile(@PathVariable Long fileId, HttpServletRequest req, HttpServletResponse res) throws IOException {
         Long userId = getUserId();
         
         // 파일 조회
@@ -162,46 +134,52 @@ class FileController {
             throw new RuntimeException("파일이 존재하지 않습니다.");
         }
         
-        // 파일을 Resource로 변환
-        Resource resource = new FileSystemResource(filePath);
-        
         // 파일명 인코딩 (한글 파일명 지원)
         String fileName = file.getName();
         String encodedFileName = java.net.URLEncoder.encode(fileName, "UTF-8").replaceAll("\\+", "%20");
-        
-        // 응답 헤더 설정
-        HttpHeaders headers = new HttpHeaders();
-        headers.add(HttpHeaders.CONTENT_DISPOSITION, 
-                "attachment; filename=\"" + fileName + "\"; filename*=UTF-8''" + encodedFileName);
-        headers.add(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE);
-        
-        return ResponseEntity.ok()
-                .headers(headers)
-                .contentLength(Files.size(filePath))
-                .body(resource);
+        String contentDisposition = "attachment; filename=\"" + fileName + "\"; filename*=UTF-8''" + encodedFileName;
+
+        fileDownloadService.writeFile(req, res, file, filePath,
+                fileDownloadService.buildETag(file, filePath), contentDisposition);
+    }
+
+    // 이미지 미리보기 (size: small / medium / large, ETag 조건부 GET 지원)
+    @GetMapping("/preview/{fileId}")
+    public void previewFile(@PathVariable Long fileId, @RequestParam(defaultValue = "medium") String size,
+                            HttpServletRequest req, HttpServletResponse res) throws IOException {
+        Long userId = getUserId();
+
+        FileEntity file = fileRepository.findById(fileId)
+                .orElseThrow(() -> new RuntimeException("파일을 찾을 수 없습니다."));
+        if (!file.getUserId().equals(userId)) {
+            throw new RuntimeException("파일 조회 권한이 없습니다.");
+        }
+        if (!"file".equals(file.getFileType())) {
+            throw new RuntimeException("폴더는 미리 볼 수 없습니다.");
+        }
+
+        Path preview = thumbnailService.getPreview(file, size);
+        fileDownloadService.writePreview(req, res, preview, thumbnailService.buildETag(file, size));
     }
 
     // 폴더 생성
     @PostMapping("/folders")
     public ResponseEntity<FileEntity> createFolder(@RequestBody FolderRequest folderRequest, HttpServletRequest req) {
         Long userId = getUserId();
-
-        FileEntity folder = new FileEntity();
-        folder.setUserId(userId);
-        folder.setParentId(folderRequest.getParentId());
-        folder.setFileType("folder");
-        folder.setName(folderRequest.getName());
-        folder.setLogicalPath(folderRequest.getName());
-        folder.setSize(0L);
-        folder.setRealPath(null);
-
-        fileRepository.save(folder);
+        FileEntity folder = fileService.createFolder(userId, folderRequest.getParentId(), folderRequest.getName());
         return ResponseEntity.ok(folder);
     }
 
+    // 최상위부터 현재 항목까지의 경로 (브레드크럼)
+    @GetMapping("/{fileId}/breadcrumbs")
+    public ResponseEntity<List<FileEntity>> getBreadcrumbs(@PathVariable Long fileId, HttpServletRequest req) {
+        Long userId = getUserId();
+        return ResponseEntity.ok(fileService.getBreadcrumbs(userId, fileId));
+    }
+
     // 다중 파일 ZIP 다운로드
     @PostMapping("/download/zip")
-    public ResponseEntity<Resource> downloadFilesAsZip(@RequestBody List<Long> fileIds, HttpServletRequest req) {
+    public ResponseEntity<StreamingResponseBody> downloadFilesAsZip(@RequestBody List<Long> fileIds, HttpServletRequest req) {
         Long userId = getUserId();
 
         // 요청 검증: 빈 배열 체크
@@ -209,22 +187,22 @@ class FileController {
             throw new RuntimeException("다운로드할 파일을 선택해주세요.");
         }
 
-        // 파일 조회 및 권한 확인
-        List<FileEntity> filesToDownload = new ArrayList<>();
-        for (Long fileId : fileIds) {
-            FileEntity file = fileRepository.findById(fileId)
-                    .orElse(null);
-            
-            if (file == null) {
-                continue; // 존재하지 않는 파일은 무시
-            }
-
+        // 파일 조회 및 권한 확인 (요청한 순서 유지, 존재하지 않는 파일은 무시)
+        Map<Long, FileEntity> requestedFiles = new HashMap<>();
+        for (FileEntity file : fileRepository.findAllById(fileIds)) {
             // 권한 확인: 본인 파일인지 확인
             if (!file.getUserId().equals(userId)) {
                 throw new RuntimeException("다운로드할 권한이 없는 파일이 포함되어 있습니다.");
             }
+            requestedFiles.put(file.getId(), file);
+        }
 
-            filesToDownload.add(file);
+        List<FileEntity> filesToDownload = new ArrayList<>();
+        for (Long fileId : new LinkedHashSet<>(fileIds)) {
+            FileEntity file = requestedFiles.get(fileId);
+            if (file != null) {
+                filesToDownload.add(file);
+            }
         }
 
         // 다운로드할 파일이 없는 경우
@@ -232,24 +210,10 @@ class FileController {
             throw new RuntimeException("다운로드할 파일을 찾을 수 없습니다.");
         }
 
-        try {
-            // ZIP 파일 생성
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ZipOutputStream zos = new ZipOutputStream(baos);
-            
-            // 파일명 충돌 방지를 위한 Set (이미 사용된 경로 추적)
-            Set<String> usedPaths = new HashSet<>();
-
-            for (FileEntity file : filesToDownload) {
-                addToZip(zos, file, "", userId, usedPaths);
-            }
-
-            zos.close();
-            byte[] zipBytes = baos.toByteArray();
-
-            // 응답 생성
-            ByteArrayResource resource = new ByteArrayResource(zipBytes);
+        // 하위 트리 전체를 한 번에 조회해 두고 ZIP 생성은 메모리에서 탐색
+        FileTree tree = fileService.loadSubtree(userId, requestedFiles.keySet());
 
+        try {
             // 파일명 인코딩 (한글 파일명 지원)
             String fileName = "download.zip";
             String encodedFileName = java.net.URLEncoder.encode(fileName, "UTF-8").replaceAll("\\+", "%20");
@@ -259,196 +223,47 @@ class FileController {
             headers.setContentDispositionFormData("attachment", fileName);
             headers.add(HttpHeaders.CONTENT_DISPOSITION,
                     "attachment; filename=\"" + fileName + "\"; filename*=UTF-8''" + encodedFileName);
-            headers.setContentLength(zipBytes.length);
+
+            // ZIP을 메모리에 모으지 않고 응답 스트림에 바로 기록 (전체 크기를 알 수 없으므로 chunked 전송)
+            // 항목 압축은 압축 스레드 풀에서 병렬로 처리되고, 응답 스트림은 컨테이너가 닫음
+            StreamingResponseBody body = outputStream ->
+                    zipExportService.writeZip(filesToDownload, tree, new BufferedOutputStream(outputStream, 64 * 1024));
 
             return ResponseEntity.ok()
                     .headers(headers)
-                    .body(resource);
+                    .body(body);
 
         } catch (IOException e) {
             throw new RuntimeException("압축 파일 생성 중 오류가 발생했습니다: " + e.getMessage());
         }
     }
 
-    // ZIP에 파일/폴더를 재귀적으로 추가하는 메서드
-    private void addToZip(ZipOutputStream zos, FileEntity file, String basePath, Long userId, Set<String> usedPaths) throws IOException {
-        String entryName = basePath + file.getName();
-        
-        if ("folder".equals(file.getFileType())) {
-            // 폴더인 경우: 먼저 "/" 추가 후 충돌 체크
-            if (!entryName.endsWith("/")) {
-                entryName += "/";
-            }
-            
-            // 파일명 충돌 처리 (폴더 경로로)
-            entryName = resolveNameConflict(entryName, usedPaths);
-            usedPaths.add(entryName);
-            
-            // 빈 폴더도 ZIP에 포함 (일부 ZIP 뷰어에서 필요)
-            ZipEntry folderEntry = new ZipEntry(entryName);
-            zos.putNextEntry(folderEntry);
-            zos.closeEntry();
-
-            // 하위 파일들 조회 및 재귀적으로 추가
-            List<FileEntity> children = fileRepository.findByUserIdAndParentId(userId, file.getId());
-            for (FileEntity child : children) {
-                addToZip(zos, child, entryName, userId, usedPaths);
-            }
-        } else {
-            // 파일인 경우: 파일명 충돌 처리
-            entryName = resolveNameConflict(entryName, usedPaths);
-            usedPaths.add(entryName);
-            
-            // 실제 파일 내용 추가
-            if (file.getRealPath() == null || file.getRealPath().isEmpty()) {
-                return; // 경로가 없는 파일은 건너뛰기
-            }
-
-            Path filePath = Paths.get(file.getRealPath());
-            if (!Files.exists(filePath)) {
-                return; // 존재하지 않는 파일은 건너뛰기
-            }
-
-            ZipEntry entry = new ZipEntry(entryName);
-            zos.putNextEntry(entry);
-
-            // 파일 내용 읽기 및 ZIP에 쓰기
-            try (FileInputStream fis = new FileInputStream(filePath.toFile())) {
-                byte[] buffer = new byte[8192];
-                int length;
-                while ((length = fis.read(buffer)) > 0) {
-                    zos.write(buffer, 0, length);
-                }
-            }
-
-            zos.closeEntry();
-        }
-    }
-
-    // 파일명 충돌 해결 메서드
-    private String resolveNameConflict(String entryName, Set<String> usedPaths) {
-        if (!usedPaths.contains(entryName)) {
-            return entryName;
-        }
-
-        // 충돌이 발생하면 번호를 추가
-        String baseName;
-        String extension = "";
-        boolean isFolder = entryName.endsWith("/");
-
-        if (isFolder) {
-            baseName = entryName.substring(0, entryName.length() - 1);
-        } else {
-            int lastDot = entryName.lastIndexOf('.');
-            if (lastDot > 0) {
-                baseName = entryName.substring(0, lastDot);
-                extension = entryName.substring(lastDot);
-            } else {
-                baseName = entryName;
-            }
-        }
-
-        int counter = 1;
-        String newName;
-        do {
-            newName = baseName + "(" + counter + ")" + extension;
-            if (isFolder) {
-                newName += "/";
-            }
-            counter++;
-        } while (usedPaths.contains(newName) && counter < 1000); // 무한 루프 방지
-
-        return newName;
-    }
-
     // 파일 이동
     @PutMapping("/move")
     public ResponseEntity<String> moveFile(@RequestBody MoveRequest moveRequest, HttpServletRequest req) {
         Long userId = getUserId();
-        Long fileId = moveRequest.getFileId();
-        Long newParentId = moveRequest.getNewParentId();
-
-        // 이동할 파일 조회
-        FileEntity fileToMove = fileRepository.findById(fileId)
-                .orElseThrow(() -> new RuntimeException("파일을 찾을 수 없습니다."));
-
-        // 사용자 소유권 확인
-        if (!fileToMove.getUserId().equals(userId)) {
-            throw new RuntimeException("파일 이동 권한이 없습니다.");
-        }
-
-        // newParentId가 null이 아닌 경우 검증
-        if (newParentId != null) {
-            // 새로운 부모 폴더 조회
-            FileEntity newParent = fileRepository.findById(newParentId)
-                    .orElseThrow(() -> new RuntimeException("대상 폴더를 찾을 수 없습니다."));
-
-            // 사용자 소유권 확인
-            if (!newParent.getUserId().equals(userId)) {
-                throw new RuntimeException("대상 폴더에 대한 권한이 없습니다.");
-            }
-
-            // 폴더 타입 확인 (파일은 부모가 될 수 없음)
-            if (!"folder".equals(newParent.getFileType())) {
-                throw new RuntimeException("대상은 폴더여야 합니다.");
-            }
-
-            // 순환 참조 방지: 자기 자신을 부모로 설정하는 것 방지
-            if (fileId.equals(newParentId)) {
-                throw new RuntimeException("자기 자신을 부모 폴더로 설정할 수 없습니다.");
-            }
-
-            // 순환 참조 방지: newParentId가 fileId의 하위 폴더인지 확인 (폴더가 자기 자신의 하위로 이동하는 것 방지)
-            if (isDescendantOf(newParentId, fileId, userId)) {
-                throw new RuntimeException("하위 폴더를 부모 폴더로 설정할 수 없습니다.");
-            }
-        }
-
-        // parentId 업데이트
-        fileToMove.setParentId(newParentId);
-        fileRepository.save(fileToMove);
-
+        fileService.moveFile(userId, moveRequest.getFileId(), moveRequest.getNewParentId());
         return ResponseEntity.ok("파일 이동 완료");
     }
 
-    // 순환 참조 체크: descendantId가 ancestorId의 하위 폴더인지 확인하는 메서드
-    // descendantId의 부모 체인을 따라가면서 ancestorId를 만나는지 확인
-    private boolean isDescendantOf(Long descendantId, Long ancestorId, Long userId) {
-        // descendantId가 폴더인지 확인 (폴더가 아니면 하위가 없으므로 체크 불필요)
-        FileEntity descendant = fileRepository.findById(descendantId).orElse(null);
-        if (descendant == null || !"folder".equals(descendant.getFileType())) {
-            return false;
-        }
-
-        // 재귀적으로 부모 체인을 따라가면서 ancestorId를 만나는지 확인
-        Long currentParentId = descendant.getParentId();
-        int maxDepth = 100; // 무한 루프 방지
-        int depth = 0;
-
-        while (currentParentId != null && depth < maxDepth) {
-            if (currentParentId.equals(ancestorId)) {
-                return true; // descendant가 ancestor의 하위 폴더임
-            }
-
-            FileEntity parent = fileRepository.findById(currentParentId).orElse(null);
-            if (parent == null || !parent.getUserId().equals(userId)) {
-                break;
-            }
-
-            currentParentId = parent.getParentId();
-            depth++;
-        }
+    // 여러 파일 한 번에 이동
+    @PutMapping("/move/batch")
+    public ResponseEntity<String> moveFiles(@RequestBody BulkMoveRequest moveRequest, HttpServletRequest req) {
+        Long userId = getUserId();
+        int moved = fileService.moveFiles(userId, moveRequest.getFileIds(), moveRequest.getNewParentId());
+        return ResponseEntity.ok(moved + "개 파일 이동 완료");
+    }
 
-        return false;
+    // 파일/폴더 복사 (서버 안에서 처리, 내용은 원본과 공유)
+    @PostMapping("/copy")
+    public ResponseEntity<String> copyFiles(@RequestBody CopyRequest copyRequest, HttpServletRequest req) {
+        Long userId = getUserId();
+        int copied = fileService.copyFiles(userId, copyRequest.getFileIds(), copyRequest.getTargetParentId());
+        return ResponseEntity.ok(copied + "개 항목 복사 완료");
     }
 
     public Long getUserId() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-
-        User user = userRepository.findByEmail(authentication.getName()).get();
-
-
-        return user.getId(); // 인증되지 않은 경우
+        return currentUserService.getUserId();
     }
 
     static class FolderRequest {
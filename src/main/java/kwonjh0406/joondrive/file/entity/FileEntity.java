@@ -1,8 +1,23 @@
 package kwonjh0406.joondrive.file.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.SQLRestriction;
 
 @Entity
+@Table(indexes = {
+        // 폴더 목록 정렬별 키셋 페이지네이션용 (userId, parentId 로 범위를 좁힌 뒤 정렬 키 + id 순으로 읽음)
+        @Index(name = "idx_file_user_parent_name", columnList = "userId, parentId, name, id"),
+        @Index(name = "idx_file_user_parent_type", columnList = "userId, parentId, fileType, name, id"),
+        @Index(name = "idx_file_user_parent_sort_size", columnList = "userId, parentId, sortSize, id"),
+        // 삭제 회수 배치 조회용 (deleted = true 인 행만 id 순으로 읽음)
+        @Index(name = "idx_file_deleted_id", columnList = "deleted, id"),
+        // 저장 구조 이전 후 남은 파일이 참조되는지 경로로 확인
+        @Index(name = "idx_file_real_path", columnList = "realPath"),
+        // 같은 폴더 안 이름 중복 방지 (이름 할당이 어긋나도 DB 가 막음)
+        @Index(name = "uk_file_sibling_name", columnList = "userId, siblingScope, name", unique = true)
+})
+// 삭제 표시된 항목은 백그라운드 회수 전까지 모든 엔티티 조회에서 제외
+@SQLRestriction("deleted = false")
 public class FileEntity {
 
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -16,12 +31,33 @@ public class FileEntity {
 
     private String logicalPath;
 
+    // 대소문자만 무시하고 악센트는 구분 (이름 할당기의 비교와 맞춤, 유니크 인덱스도 이 기준)
+    @Column(columnDefinition = "varchar(255) character set utf8mb4 collate utf8mb4_0900_as_ci")
     private String name;
 
     private Long size;
 
     private String realPath;
 
+    // 내용이 저장된 blob 의 SHA-256 (blob 저장소 도입 전 파일은 null)
+    private String blobHash;
+
+    // realPath 파일의 저장 형식 (blob 의 codec 과 같음, null 이면 원본 그대로)
+    private String codec;
+
+    // 삭제 요청 시 하위 트리 전체를 한 번에 표시하고, 실제 행/파일 정리는 백그라운드에서 수행
+    @Column(nullable = false)
+    private boolean deleted = false;
+
+    // DB 가 계산하는 이름 중복 범위: 부모 폴더 ID (최상위는 0), 삭제 표시된 행은 null 이라 유니크 인덱스에서 빠짐
+    @Column(insertable = false, updatable = false,
+            columnDefinition = "bigint as (if(deleted, null, coalesce(parent_id, 0)))")
+    private Long siblingScope;
+
+    // DB 가 계산하는 크기 정렬 키: 크기가 없는 행(폴더)은 0. 키셋 조건(size > ?)이 null 에서 끊기지 않도록 null 이 없는 값으로 정렬
+    @Column(insertable = false, updatable = false, columnDefinition = "bigint as (coalesce(size, 0))")
+    private Long sortSize;
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
@@ -45,4 +81,13 @@ public class FileEntity {
 
     public String getRealPath() { return realPath; }
     public void setRealPath(String realPath) { this.realPath = realPath; }
+
+    public String getBlobHash() { return blobHash; }
+    public void setBlobHash(String blobHash) { this.blobHash = blobHash; }
+
+    public String getCodec() { return codec; }
+    public void setCodec(String codec) { this.codec = codec; }
+
+    public boolean isDeleted() { return deleted; }
+    public void setDeleted(boolean deleted) { this.deleted = deleted; }
 }
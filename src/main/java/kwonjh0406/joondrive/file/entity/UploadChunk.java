@@ -0,0 +1,23 @@
+package kwonjh0406.joondrive.file.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+// 업로드 세션에서 수신이 끝난 바이트 구간 [startOffset, startOffset + chunkLength)
+@Entity
+@Table(indexes = @Index(name = "idx_upload_chunk_session", columnList = "sessionId"))
+@Getter
+@Setter
+public class UploadChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String sessionId;
+
+    private Long startOffset;
+
+    private Long chunkLength;
+}
@@ -0,0 +1,43 @@
+package kwonjh0406.joondrive.file.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(indexes = @Index(name = "idx_upload_session_user", columnList = "userId"))
+@Getter
+@Setter
+public class UploadSession {
+
+    @Id
+    private String id;
+
+    private Long userId;
+
+    private Long parentId;
+
+    private String fileName;
+
+    private Long totalSize; // 바이트 단위 (세션이 남아 있는 동안 사용자의 용량으로 잡혀 있음)
+
+    // 조각이 기록되는 임시 파일 (커밋 시 최종 위치로 rename)
+    private String tempPath;
+
+    // 받은 바이트 수 (겹쳐 받은 구간은 한 번만 셈). 조각을 기록할 때마다 갱신하므로 커밋 시 조각 목록을 다시 합치지 않음
+    private Long receivedBytes;
+
+    // 커밋이 임시 파일을 가져간 상태. 이후의 조각 쓰기/취소는 거절
+    @Column(nullable = false)
+    private boolean committing = false;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
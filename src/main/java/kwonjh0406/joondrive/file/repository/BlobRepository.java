@@ -0,0 +1,61 @@
+package kwonjh0406.joondrive.file.repository;
+
+import jakarta.persistence.LockModeType;
+import kwonjh0406.joondrive.file.entity.BlobEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface BlobRepository extends JpaRepository<BlobEntity, String> {
+
+    // 없으면 참조 수 1로 생성, 있으면 참조 수 증가 (행 잠금으로 정리 작업과 직렬화됨)
+    @Modifying
+    @Query(value = "insert into blob_entity (hash, path, size, codec, ref_count) values (:hash, :path, :size, :codec, 1) " +
+            "on duplicate key update ref_count = ref_count + 1", nativeQuery = true)
+    void upsertReference(@Param("hash") String hash, @Param("path") String path, @Param("size") long size,
+                         @Param("codec") String codec);
+
+    // 복사: 이미 참조 중인 blob 들의 참조 수를 count 만큼 증가. 정리 중인(참조 0) blob 은 건너뛰므로 반환값으로 확인
+    @Modifying
+    @Query(value = "update blob_entity set ref_count = ref_count + :count where hash in (:hashes) and ref_count > 0", nativeQuery = true)
+    int addReferences(@Param("hashes") Collection<String> hashes, @Param("count") long count);
+
+    @Modifying
+    @Query("update BlobEntity b set b.refCount = b.refCount - 1 where b.hash = :hash and b.refCount > 0")
+    int releaseReference(@Param("hash") String hash);
+
+    @Modifying
+    @Query("update BlobEntity b set b.refCount = b.refCount - :count where b.hash = :hash and b.refCount >= :count")
+    int releaseReferences(@Param("hash") String hash, @Param("count") long count);
+
+    @Query(value = "select ref_count from blob_entity where hash = :hash", nativeQuery = true)
+    long findRefCount(@Param("hash") String hash);
+
+    @Query("select b.hash from BlobEntity b where b.refCount = 0")
+    List<String> findUnreferencedHashes();
+
+    // 정리 직전에 다시 잠그고 확인 (그 사이 참조가 생겼으면 비어 있음)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from BlobEntity b where b.hash = :hash and b.refCount = 0")
+    Optional<BlobEntity> findUnreferencedForUpdate(@Param("hash") String hash);
+
+    // 샤딩 전 경로({base}/blobs/{hash})에 남아 있는 blob (해시 순 키셋)
+    @Query(value = "select hash from blob_entity where path = concat(:flatDir, hash) and hash > :afterHash" +
+            " order by hash limit :limit", nativeQuery = true)
+    List<String> findFlatHashes(@Param("flatDir") String flatDir, @Param("afterHash") String afterHash, @Param("limit") int limit);
+
+    // 경로 이전 중 등록/정리 작업과 직렬화
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from BlobEntity b where b.hash = :hash")
+    Optional<BlobEntity> findForUpdate(@Param("hash") String hash);
+
+    // 주어진 경로 중 blob 이 가리키는 것
+    @Query("select b.path from BlobEntity b where b.path in :paths")
+    List<String> findReferencedPaths(@Param("paths") Collection<String> paths);
+}
@@ -0,0 +1,11 @@
+package kwonjh0406.joondrive.file.repository;
+
+// 회수 대기 중인 삭제 항목 (엔티티 조회에서는 제외되므로 네이티브 쿼리로 읽음)
+public interface DeletedFileView {
+    Long getId();
+    Long getUserId();
+    String getFileType();
+    Long getSize();
+    String getRealPath();
+    String getBlobHash();
+}
@@ -0,0 +1,9 @@
+package kwonjh0406.joondrive.file.repository;
+
+// 같은 폴더에 같은 이름이 먼저 있어 번호를 붙여야 하는 항목
+public interface DuplicateNameView {
+    Long getId();
+    Long getUserId();
+    Long getParentId();
+    String getName();
+}
@@ -0,0 +1,85 @@
+package kwonjh0406.joondrive.file.repository;
+
+import kwonjh0406.joondrive.file.entity.FileClosure;
+import kwonjh0406.joondrive.file.entity.FileEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 파일 행과 조상 관계 행을 JDBC 배치로 한 번에 넣습니다. (복사 등 수천~수백만 행)
+ * 엔티티 ID 가 IDENTITY 라 JPA 로는 행마다 INSERT 가 나가므로, 배치로 보내고 생성된 ID 만 엔티티에 채웁니다.
+ * MySQL 드라이버의 rewriteBatchedStatements 가 켜져 있으면 배치가 여러 행 INSERT 문 하나로 합쳐집니다.
+ * 호출한 쪽의 트랜잭션(커넥션)에서 실행됩니다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class FileBulkInsertRepository {
+
+    private static final String INSERT_FILE = "insert into file_entity" +
+            " (user_id, parent_id, file_type, name, logical_path, size, real_path, blob_hash, codec, deleted)" +
+            " values (?, ?, ?, ?, ?, ?, ?, ?, ?, false)";
+    private static final String INSERT_CLOSURE = "insert into file_closure (ancestor_id, descendant_id, depth) values (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 파일 행들을 넣고 생성된 ID 를 각 엔티티에 채웁니다.
+     */
+    public void insertFiles(List<FileEntity> files) {
+        if (files.isEmpty()) return;
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_FILE, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        FileEntity file = files.get(i);
+                        ps.setLong(1, file.getUserId());
+                        if (file.getParentId() != null) {
+                            ps.setLong(2, file.getParentId());
+                        } else {
+                            ps.setNull(2, Types.BIGINT);
+                        }
+                        ps.setString(3, file.getFileType());
+                        ps.setString(4, file.getName());
+                        ps.setString(5, file.getLogicalPath());
+                        ps.setLong(6, file.getSize() != null ? file.getSize() : 0L);
+                        ps.setString(7, file.getRealPath());
+                        ps.setString(8, file.getBlobHash());
+                        ps.setString(9, file.getCodec());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return files.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != files.size()) {
+            throw new IllegalStateException("생성된 ID 수가 맞지 않습니다: " + keys.size() + " / " + files.size());
+        }
+        for (int i = 0; i < files.size(); i++) {
+            files.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+    }
+
+    public void insertClosureLinks(List<FileClosure> links) {
+        if (links.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_CLOSURE, links, links.size(), (ps, link) -> {
+            ps.setLong(1, link.getAncestorId());
+            ps.setLong(2, link.getDescendantId());
+            ps.setInt(3, link.getDepth());
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package kwonjh0406.joondrive.file.repository;
+
+import kwonjh0406.joondrive.file.entity.FileClosure;
+import kwonjh0406.joondrive.file.entity.FileEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface FileClosureRepository extends JpaRepository<FileClosure, Long> {
+
+    // 새 항목 등록: 자기 자신(depth 0) + 부모의 모든 조상에 depth + 1 로 연결
+    @Modifying
+    @Query(value = "insert into file_closure (ancestor_id, descendant_id, depth)" +
+            " select ancestor_id, :id, depth + 1 from file_closure where descendant_id = :parentId" +
+            " union all select :id, :id, 0", nativeQuery = true)
+    void insertNode(@Param("id") Long id, @Param("parentId") Long parentId);
+
+    // 자기 자신을 포함한 모든 조상 ID
+    @Query("select c.ancestorId from FileClosure c where c.descendantId = :id")
+    List<Long> findAncestorIds(@Param("id") Long id);
+
+    // 자기 자신을 포함한 모든 조상 ID 를 조상 행(파일, 조상 관계)을 잠그며 최신 값으로 읽음
+    @Query(value = "select c.ancestor_id from file_closure c join file_entity f on f.id = c.ancestor_id" +
+            " where c.descendant_id = :id for update", nativeQuery = true)
+    List<Long> lockAncestorIds(@Param("id") Long id);
+
+    // 루트부터 자기 자신까지의 경로 (브레드크럼)
+    @Query("select f from FileClosure c join FileEntity f on f.id = c.ancestorId" +
+            " where c.descendantId = :id order by c.depth desc")
+    List<FileEntity> findAncestors(@Param("id") Long id);
+
+    // 자기 자신을 포함한 하위 전체
+    @Query("select f from FileClosure c join FileEntity f on f.id = c.descendantId where c.ancestorId = :id")
+    List<FileEntity> findSubtree(@Param("id") Long id);
+
+    // 이동 1단계: 이동하는 하위 트리들과 각 트리 바깥 조상 사이의 연결을 한 문장으로 제거
+    // (선택 항목끼리 포함 관계가 있으면 안쪽 트리도 바깥 선택 항목에서 떨어져 나감)
+    @Modifying
+    @Query(value = "delete c from file_closure c" +
+            " join file_closure d on d.descendant_id = c.descendant_id and d.ancestor_id in (:ids)" +
+            " left join file_closure x on x.ancestor_id = d.ancestor_id and x.descendant_id = c.ancestor_id" +
+            " where x.id is null", nativeQuery = true)
+    void detachSubtrees(@Param("ids") Collection<Long> ids);
+
+    // 이동 2단계: 새 부모의 모든 조상과 떼어 낸 하위 트리들 전체를 한 문장으로 연결
+    @Modifying
+    @Query(value = "insert into file_closure (ancestor_id, descendant_id, depth)" +
+            " select p.ancestor_id, s.descendant_id, p.depth + s.depth + 1" +
+            " from file_closure p join file_closure s on s.ancestor_id in (:ids)" +
+            " where p.descendant_id = :parentId", nativeQuery = true)
+    void attachSubtrees(@Param("ids") Collection<Long> ids, @Param("parentId") Long parentId);
+
+    // 조상 관계가 이미 채워진 하위 트리(복사본)를 새 부모의 모든 조상과 연결
+    @Modifying
+    @Query(value = "insert into file_closure (ancestor_id, descendant_id, depth)" +
+            " select p.ancestor_id, s.descendant_id, p.depth + s.depth + 1" +
+            " from file_closure p join file_closure s on s.ancestor_id = :id" +
+            " where p.descendant_id = :parentId", nativeQuery = true)
+    void attachSubtree(@Param("id") Long id, @Param("parentId") Long parentId);
+
+    @Modifying
+    @Query("delete from FileClosure c where c.descendantId in :ids or c.ancestorId in :ids")
+    void deleteByNodeIds(@Param("ids") Collection<Long> ids);
+
+    // 기존 데이터 보정 1단계: 자기 자신 연결이 없는 항목에 depth 0 행 추가
+    @Modifying
+    @Query(value = "insert into file_closure (ancestor_id, descendant_id, depth)" +
+            " select f.id, f.id, 0 from file_entity f" +
+            " where not exists (select 1 from file_closure c where c.descendant_id = f.id and c.depth = 0)", nativeQuery = true)
+    int backfillSelfLinks();
+
+    // 기존 데이터 보정 2단계: 조상 연결이 끝난 부모 아래의 항목을 한 단계씩 연결 (0 이 될 때까지 반복)
+    @Modifying
+    @Query(value = "insert into file_closure (ancestor_id, descendant_id, depth)" +
+            " select p.ancestor_id, f.id, p.depth + 1 from file_entity f" +
+            " join file_entity pf on pf.id = f.parent_id" +
+            " join file_closure p on p.descendant_id = pf.id" +
+            " where not exists (select 1 from file_closure c where c.descendant_id = f.id and c.depth = 1)" +
+            " and (pf.parent_id is null or exists (select 1 from file_closure c2 where c2.descendant_id = pf.id and c2.depth = 1))",
+            nativeQuery = true)
+    int backfillParentLinks();
+}
@@ -0,0 +1,12 @@
+package kwonjh0406.joondrive.file.repository;
+
+// 폴더 목록 한 항목 (응답 필드와 정렬 키만, 저장 경로 등은 읽지 않음)
+public interface FileListItemView {
+    Long getId();
+    Long getParentId();
+    String getName();
+    String getFileType();
+    Long getSize();
+    // 크기순 정렬 키 (size 가 null 이면 0)
+    Long getSortSize();
+}
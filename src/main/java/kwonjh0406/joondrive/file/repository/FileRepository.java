@@ -1,10 +1,138 @@
 package kwonjh0406.joondrive.file.repository;
 
 import kwonjh0406.joondrive.file.entity.FileEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface FileRepository extends JpaRepository<FileEntity, Long> {
+
+    // ID 조회도 삭제 표시된 항목을 제외하도록 JPQL 로 재정의
+    @Override
+    @Query("select f from FileEntity f where f.id = :id and f.deleted = false")
+    Optional<FileEntity> findById(@Param("id") Long id);
+
     List<FileEntity> findByUserIdAndParentId(Long userId, Long parentId);
+
+    // 키셋 페이지네이션: (userId, parentId, 정렬 키, id) 복합 인덱스를 타고 페이지 크기만큼만 읽음 (목록에 필요한 컬럼만)
+    Window<FileListItemView> findByUserIdAndParentId(Long userId, Long parentId, ScrollPosition position, Sort sort, Limit limit);
+
+    // 같은 폴더에서 name 이 있는지와 name 에 번호를 붙인 형태("이름(n).확장자") 중 가장 큰 번호 (이름 인덱스 범위 조회, 한 행만 돌려줌)
+    // prefixLength/suffixLength: 번호 앞/뒤 부분의 글자 수. 번호 자리가 숫자(1~9자리)가 아니면 제외 ("a(-3).txt" 등)
+    @Query(value = "select count(case when name = :name then 1 end) as taken," +
+            " max(case when substring(name, :prefixLength + 2, char_length(name) - :prefixLength - :suffixLength - 2) regexp '^[0-9]{1,9}$'" +
+            " then cast(substring(name, :prefixLength + 2, char_length(name) - :prefixLength - :suffixLength - 2) as unsigned) end) as maxSuffix" +
+            " from file_entity where user_id = :userId and parent_id = :parentId and deleted = false" +
+            " and (name = :name or (name like :pattern escape '!' and char_length(name) - :prefixLength - :suffixLength - 2 between 1 and 9))",
+            nativeQuery = true)
+    NameUsageView findNameUsage(@Param("userId") Long userId, @Param("parentId") Long parentId, @Param("name") String name,
+                                @Param("pattern") String pattern, @Param("prefixLength") int prefixLength,
+                                @Param("suffixLength") int suffixLength);
+
+    @Query(value = "select count(case when name = :name then 1 end) as taken," +
+            " max(case when substring(name, :prefixLength + 2, char_length(name) - :prefixLength - :suffixLength - 2) regexp '^[0-9]{1,9}$'" +
+            " then cast(substring(name, :prefixLength + 2, char_length(name) - :prefixLength - :suffixLength - 2) as unsigned) end) as maxSuffix" +
+            " from file_entity where user_id = :userId and parent_id is null and deleted = false" +
+            " and (name = :name or (name like :pattern escape '!' and char_length(name) - :prefixLength - :suffixLength - 2 between 1 and 9))",
+            nativeQuery = true)
+    NameUsageView findRootNameUsage(@Param("userId") Long userId, @Param("name") String name,
+                                    @Param("pattern") String pattern, @Param("prefixLength") int prefixLength,
+                                    @Param("suffixLength") int suffixLength);
+
+    // 지정한 항목들과 그 하위 전체를 재귀 CTE 한 번으로 조회 (폴더 깊이만큼 쿼리를 반복하지 않음)
+    @Query(value = "with recursive subtree as (" +
+            " select * from file_entity where user_id = :userId and id in (:rootIds) and deleted = false" +
+            " union all" +
+            " select f.* from file_entity f join subtree s on f.parent_id = s.id where f.user_id = :userId and f.deleted = false" +
+            ") select * from subtree", nativeQuery = true)
+    List<FileEntity> findSubtree(@Param("userId") Long userId, @Param("rootIds") Collection<Long> rootIds);
+
+    // 사용량 장부는 회수가 끝날 때 차감되므로, 보정 시에도 회수 대기 중인 항목까지 포함해 합산
+    @Query(value = "select coalesce(sum(size), 0) from file_entity where user_id = :userId and file_type = 'file'", nativeQuery = true)
+    long sumFileSizeByUserId(@Param("userId") Long userId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update FileEntity f set f.parentId = :parentId where f.userId = :userId and f.id in :ids")
+    int updateParentId(@Param("userId") Long userId, @Param("ids") Collection<Long> ids, @Param("parentId") Long parentId);
+
+    // 이름 유니크 인덱스 적용 전: 같은 폴더에 같은 이름(열 collation 기준)이 먼저 있는 행 (가장 먼저 만든 행은 제외)
+    @Query(value = "select f.id, f.user_id as userId, f.parent_id as parentId, f.name from file_entity f" +
+            " where f.deleted = false and exists (select 1 from file_entity o where o.user_id = f.user_id" +
+            " and o.parent_id <=> f.parent_id and o.name = f.name and o.deleted = false and o.id < f.id)" +
+            " order by f.id limit :limit", nativeQuery = true)
+    List<DuplicateNameView> findDuplicateSiblingNames(@Param("limit") int limit);
+
+    @Query(value = "select collation_name from information_schema.columns where table_schema = database()" +
+            " and table_name = 'file_entity' and column_name = 'name'", nativeQuery = true)
+    String findNameCollation();
+
+    @Transactional
+    @Modifying
+    @Query(value = "alter table file_entity modify name varchar(255) character set utf8mb4 collate utf8mb4_0900_as_ci", nativeQuery = true)
+    void useNameCollation();
+
+    @Query(value = "select count(*) from information_schema.statistics where table_schema = database()" +
+            " and table_name = 'file_entity' and index_name = 'uk_file_sibling_name'", nativeQuery = true)
+    long countSiblingNameIndex();
+
+    @Transactional
+    @Modifying
+    @Query(value = "create unique index uk_file_sibling_name on file_entity (user_id, sibling_scope, name)", nativeQuery = true)
+    void createSiblingNameIndex();
+
+    // 옮기면서 이름도 바꿈 (대상 폴더에 같은 이름이 있을 때. 옮기기 전 폴더에서 바꾸면 거기서 겹칠 수 있음)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update FileEntity f set f.parentId = :parentId, f.name = :name, f.logicalPath = :name where f.userId = :userId and f.id = :id")
+    int updateParentIdAndName(@Param("userId") Long userId, @Param("id") Long id, @Param("parentId") Long parentId,
+                              @Param("name") String name);
+
+    // 지정한 항목들과 그 하위 전체를 조상 관계 색인을 이용해 한 문장으로 삭제 표시
+    @Modifying
+    @Query(value = "update file_entity f join file_closure c on c.descendant_id = f.id" +
+            " set f.deleted = true where c.ancestor_id in (:ids) and f.user_id = :userId", nativeQuery = true)
+    int markSubtreeDeleted(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    // 회수할 배치를 행 잠금으로 가져옴. 다른 노드/실행이 잠근 행은 건너뛰므로 같은 행을 두 번 회수하지 않음 (트랜잭션 안에서 호출)
+    @Query(value = "select id, user_id as userId, file_type as fileType, size, real_path as realPath, blob_hash as blobHash" +
+            " from file_entity where deleted = true order by id limit :limit for update skip locked", nativeQuery = true)
+    List<DeletedFileView> claimDeletedBatch(@Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "delete from file_entity where id in (:ids) and deleted = true", nativeQuery = true)
+    int purgeDeleted(@Param("ids") Collection<Long> ids);
+
+    // blob 경로가 바뀌면 그 blob 을 가리키는 모든 행(삭제 표시된 행 포함)의 경로도 함께 변경
+    @Modifying
+    @Query(value = "update file_entity set real_path = :path where blob_hash = :hash", nativeQuery = true)
+    int updateRealPathByBlobHash(@Param("hash") String hash, @Param("path") String path);
+
+    // blob 저장소 도입 전 파일 (ID 순 키셋)
+    @Query(value = "select * from file_entity where file_type = 'file' and blob_hash is null and real_path is not null" +
+            " and deleted = false and id > :afterId order by id limit :limit", nativeQuery = true)
+    List<FileEntity> findLegacyFiles(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    // 이전 파일을 blob 으로 연결 (그 사이 삭제되었거나 이미 연결되었으면 0)
+    @Modifying
+    @Query(value = "update file_entity set blob_hash = :hash, real_path = :path, codec = :codec" +
+            " where id = :id and blob_hash is null and deleted = false", nativeQuery = true)
+    int attachBlob(@Param("id") Long id, @Param("hash") String hash, @Param("path") String path, @Param("codec") String codec);
+
+    // 주어진 경로 중 파일 행이 가리키는 것 (idx_file_real_path 로 경로마다 인덱스 조회)
+    @Query("select distinct f.realPath from FileEntity f where f.realPath in :paths")
+    List<String> findReferencedRealPaths(@Param("paths") Collection<String> paths);
+
+    // 이름 검색 색인을 만들 때 사용자의 전체 항목을 한 번에 (필요한 열만)
+    @Query(value = "select id, parent_id as parentId, name, file_type as fileType" +
+            " from file_entity where user_id = :userId and deleted = false", nativeQuery = true)
+    List<FileSearchEntryView> findSearchEntries(@Param("userId") Long userId);
 }
@@ -0,0 +1,9 @@
+package kwonjh0406.joondrive.file.repository;
+
+// 이름 검색 색인에 올리는 항목 (이름과 트리 구조만)
+public interface FileSearchEntryView {
+    Long getId();
+    Long getParentId();
+    String getName();
+    String getFileType();
+}
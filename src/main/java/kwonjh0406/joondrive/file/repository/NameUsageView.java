@@ -0,0 +1,9 @@
+package kwonjh0406.joondrive.file.repository;
+
+/**
+ * 한 폴더 안에서 어떤 이름이 쓰이고 있는지: 그 이름 자체가 있는지, 번호를 붙인 형태("이름(n).확장자") 중 가장 큰 번호.
+ */
+public interface NameUsageView {
+    long getTaken();
+    Long getMaxSuffix();
+}
@@ -0,0 +1,17 @@
+package kwonjh0406.joondrive.file.repository;
+
+import kwonjh0406.joondrive.file.entity.UploadChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface UploadChunkRepository extends JpaRepository<UploadChunk, Long> {
+    List<UploadChunk> findBySessionIdOrderByStartOffset(String sessionId);
+
+    @Modifying
+    @Query("delete from UploadChunk c where c.sessionId = :sessionId")
+    void deleteBySessionId(@Param("sessionId") String sessionId);
+}
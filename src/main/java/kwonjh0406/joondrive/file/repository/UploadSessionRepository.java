@@ -0,0 +1,49 @@
+package kwonjh0406.joondrive.file.repository;
+
+import jakarta.persistence.LockModeType;
+import kwonjh0406.joondrive.file.entity.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+    List<UploadSession> findByCreatedAtBefore(LocalDateTime createdAt);
+
+    // 진행 중인 분할 업로드 세션이 잡아 둔 용량
+    @Query("select coalesce(sum(s.totalSize), 0) from UploadSession s where s.userId = :userId")
+    long sumTotalSizeByUserId(@Param("userId") Long userId);
+
+    // 커밋/취소가 겹쳐도 한 쪽만 세션을 가져가도록 삭제한 행 수로 확인 (이미 없으면 0)
+    @Modifying
+    @Query("delete from UploadSession s where s.id = :id")
+    int deleteSessionById(@Param("id") String id);
+
+    // 취소: 커밋이 가져가지 않은 세션만 삭제
+    @Modifying
+    @Query("delete from UploadSession s where s.id = :id and s.committing = false")
+    int deleteReceivingSessionById(@Param("id") String id);
+
+    // 커밋 시작: 한 요청만 1 을 받음 (이미 커밋 중이거나 없으면 0)
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update UploadSession s set s.committing = true where s.id = :id and s.committing = false")
+    int markCommitting(@Param("id") String id);
+
+    // 커밋 실패: 다시 조각을 받고 커밋할 수 있게 되돌림
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update UploadSession s set s.committing = false where s.id = :id")
+    int clearCommitting(@Param("id") String id);
+
+    // 조각 기록을 같은 세션끼리 한 줄로 세움 (수신 구간/바이트 수 갱신)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from UploadSession s where s.id = :id")
+    Optional<UploadSession> findForUpdate(@Param("id") String id);
+}
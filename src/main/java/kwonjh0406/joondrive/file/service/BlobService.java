@@ -0,0 +1,246 @@
+package kwonjh0406.joondrive.file.service;
+
+import kwonjh0406.joondrive.file.entity.BlobEntity;
+import kwonjh0406.joondrive.file.repository.BlobRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 내용 주소 기반(content-addressed) blob 저장소.
+ * 같은 내용의 파일은 SHA-256 해시 하나로 묶여 디스크에 한 번만 저장되고, 참조 수로 수명을 관리합니다.
+ * 파일 삭제는 참조 수만 줄이며, 참조가 없는 blob 은 주기적인 정리 작업이 회수합니다.
+ * 잘 줄어드는 내용은 gzip 으로 압축해 저장하며(codec), 해시와 크기는 항상 원본 기준입니다.
+ */
+@Service
+@RequiredArgsConstructor
+public class BlobService {
+
+    public static final String CODEC_GZIP = "gzip";
+
+    // 이보다 작은 파일은 압축해도 디스크 블록 단위로는 거의 줄지 않음
+    private static final long MIN_COMPRESS_SIZE = 4 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Value("${storage.base-path}")
+    private String BASE_STORAGE_PATH;
+
+    @Value("${storage.compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    private final BlobRepository blobRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService fileIoExecutor;
+
+    // 업로드 중인 임시 파일 경로 ({base}/.uploads, blob 저장소와 같은 파일시스템이어야 rename 가능)
+    public Path newTempFile() throws IOException {
+        Path dir = Paths.get(BASE_STORAGE_PATH).resolve(".uploads");
+        if (!Files.exists(dir)) Files.createDirectories(dir);
+        return dir.resolve(UUID.randomUUID() + ".tmp");
+    }
+
+    public MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 스트림을 읽는 동안 해시를 함께 계산하도록 감싼다
+    public DigestInputStream digesting(InputStream inputStream) {
+        return new DigestInputStream(inputStream, newDigest());
+    }
+
+    public String toHex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // 이미 디스크에 있는 파일의 해시 계산 (multipart/분할 업로드처럼 스트림을 직접 받지 않은 경우)
+    public String hash(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return toHex(digest);
+    }
+
+    /**
+     * 잘 줄어드는 내용이면 임시 파일을 gzip 으로 바꿔 씁니다. (수신 직후 호출, 해시는 미리 원본으로 계산해 둠)
+     * 같은 내용의 blob 이 이미 있거나, 이미 압축된 형식이거나, 앞부분 표본과 전체 결과가 10% 이상 줄지 않으면 그대로 둡니다.
+     * @return 임시 파일에 적용한 codec (압축하지 않았으면 null)
+     */
+    public String compressIfWorthwhile(Path tempFile, String fileName, String hash, long size) throws IOException {
+        if (!compressionEnabled || size < MIN_COMPRESS_SIZE || Compressibility.hasIncompressibleExtension(fileName)) {
+            return null;
+        }
+        // 이미 저장된 내용이면 임시 파일은 버려지므로 압축할 필요 없음
+        if (blobRepository.existsById(hash) || !Compressibility.sampleCompressesWell(tempFile)) {
+            return null;
+        }
+
+        Path compressed = tempFile.resolveSibling(tempFile.getFileName() + ".gz");
+        try (InputStream in = Files.newInputStream(tempFile);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed), BUFFER_SIZE)) {
+            in.transferTo(out);
+        } catch (IOException e) {
+            Files.deleteIfExists(compressed);
+            throw e;
+        }
+
+        if (!Compressibility.isWorthwhile(Files.size(compressed), size)) {
+            Files.deleteIfExists(compressed);
+            return null;
+        }
+        Files.move(compressed, tempFile, StandardCopyOption.REPLACE_EXISTING);
+        return CODEC_GZIP;
+    }
+
+    /**
+     * 저장된 blob 파일의 원본 내용을 읽는 스트림 (압축 저장된 파일은 풀면서 읽음)
+     */
+    public static InputStream openContent(Path path, String codec) throws IOException {
+        return decode(Files.newInputStream(path), codec);
+    }
+
+    // 이미 연 blob 파일 스트림을 원본 내용 스트림으로 (압축 저장된 파일은 풀면서 읽음)
+    public static InputStream decode(InputStream in, String codec) throws IOException {
+        if (CODEC_GZIP.equals(codec)) {
+            return new GZIPInputStream(new BufferedInputStream(in, BUFFER_SIZE), BUFFER_SIZE);
+        }
+        return in;
+    }
+
+    /**
+     * 임시 파일을 blob 으로 등록합니다. 같은 해시의 blob 이 있으면 임시 파일은 버리고 참조 수만 늘립니다.
+     * 참조를 먼저 잡은 뒤(행 잠금) 파일을 옮기므로, 동시에 도는 정리 작업이 방금 옮긴 파일을 지우지 않습니다.
+     * 호출한 트랜잭션이 롤백되면 옮긴 파일을 지워, 행 없이 파일만 남지 않게 합니다.
+     * @param codec 임시 파일의 압축 형식 (compressIfWorthwhile 의 결과)
+     * @return 등록된 blob
+     */
+    @Transactional
+    public BlobEntity store(Path tempFile, String hash, long size, String codec) throws IOException {
+        blobRepository.upsertReference(hash, getBlobPath(hash).toString(), size, codec);
+        BlobEntity blob = blobRepository.findById(hash)
+                .orElseThrow(() -> new IllegalStateException("blob 등록 실패: " + hash));
+        // 같은 트랜잭션에서 먼저 읽은 엔티티가 있을 수 있으므로 참조 수는 DB 에서 다시 읽음
+        long refCount = blobRepository.findRefCount(hash);
+
+        // 이미 있는 blob 은 등록된 경로 기준 (저장 구조 이전 전의 경로일 수 있음)
+        Path blobPath = Paths.get(blob.getPath());
+        // 다른 참조가 없는데 파일이 있으면(이전에 중단된 등록이 남긴 파일 등) 형식을 믿을 수 없으므로 지금 받은 내용으로 바꿈
+        if (Files.exists(blobPath) && refCount > 1) {
+            Files.deleteIfExists(tempFile);
+        } else {
+            Files.createDirectories(blobPath.getParent());
+            Files.move(tempFile, blobPath, StandardCopyOption.ATOMIC_MOVE);
+            blob.setCodec(codec);
+            deleteOnRollback(blobPath);
+        }
+        return blob;
+    }
+
+    // 롤백되면 방금 옮긴 파일을 지움. 잠금이 풀린 뒤 다른 등록이 같은 경로에 새로 옮긴 파일은 지우지 않도록 파일 식별자로 확인
+    private void deleteOnRollback(Path path) throws IOException {
+        Object fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) return;
+                try {
+                    if (fileKey == null || fileKey.equals(Files.readAttributes(path, BasicFileAttributes.class).fileKey())) {
+                        Files.deleteIfExists(path);
+                    }
+                } catch (IOException e) {
+                    // 이미 없음
+                }
+            }
+        });
+    }
+
+    /**
+     * blob 참조 수를 하나 줄입니다. 실제 파일은 정리 작업에서 삭제됩니다.
+     */
+    @Transactional
+    public void release(String hash) {
+        if (hash == null) return;
+        blobRepository.releaseReference(hash);
+    }
+
+    /**
+     * 같은 blob 에 대한 참조 여러 개를 한 번에 줄입니다. (삭제 회수 배치용)
+     */
+    @Transactional
+    public void release(String hash, long count) {
+        blobRepository.releaseReferences(hash, count);
+    }
+
+    /**
+     * 참조가 없는 blob 을 주기적으로 회수합니다.
+     * blob 마다 잠금을 다시 잡고 참조 수를 확인하므로, 그 사이 새로 참조된 blob 은 건드리지 않습니다.
+     * blob 별 삭제는 파일 작업 스레드 풀에서 병렬로 수행합니다.
+     */
+    @Scheduled(fixedDelayString = "${storage.blob.sweep-interval:PT10M}")
+    public void sweepUnreferencedBlobs() {
+        List<CompletableFuture<Void>> tasks = blobRepository.findUnreferencedHashes().stream()
+                .map(hash -> CompletableFuture.runAsync(() -> sweep(hash), fileIoExecutor))
+                .toList();
+        CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+    }
+
+    private void sweep(String hash) {
+        transactionTemplate.executeWithoutResult(status ->
+                blobRepository.findUnreferencedForUpdate(hash).ifPresent(blob -> {
+                    // 파일 삭제 실패 시 예외로 롤백하여 행을 남겨 두고 다음 주기에 다시 시도
+                    try {
+                        Files.deleteIfExists(Paths.get(blob.getPath()));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    blobRepository.delete(blob);
+                }));
+    }
+
+    // {base}/blobs/ab/cd/abcd… : 해시 앞 두 글자씩 두 단계로 나눠 한 디렉터리의 항목 수를 제한 (단계마다 최대 256개)
+    Path getBlobPath(String hash) {
+        return getBlobRoot().resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    Path getBlobRoot() {
+        return Paths.get(BASE_STORAGE_PATH).resolve("blobs");
+    }
+}
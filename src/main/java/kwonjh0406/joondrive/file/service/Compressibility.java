@@ -0,0 +1,55 @@
+package kwonjh0406.joondrive.file.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 압축할 가치가 있는지 판단합니다. (ZIP 내보내기의 항목별 압축 방식, 업로드 파일의 저장 시 압축)
+ * 이미 압축된 형식은 확장자로 거르고, 나머지는 앞부분 표본을 실제로 압축해 본 결과로 정합니다.
+ */
+final class Compressibility {
+
+    static final int SAMPLE_SIZE = 64 * 1024;
+    // 압축해서 10% 이상 줄지 않으면 압축하지 않음
+    static final double MIN_COMPRESSION_RATIO = 0.9;
+
+    private static final Set<String> INCOMPRESSIBLE_EXTENSIONS = Set.of(
+            "jpg", "jpeg", "png", "gif", "webp", "heic", "heif", "avif",
+            "mp4", "m4v", "mov", "mkv", "avi", "webm", "wmv",
+            "mp3", "m4a", "aac", "ogg", "opus", "flac",
+            "zip", "gz", "tgz", "bz2", "xz", "7z", "rar", "zst", "jar", "apk",
+            "docx", "xlsx", "pptx", "hwpx", "pdf");
+
+    private Compressibility() {
+    }
+
+    // 파일 이름 또는 ZIP 항목 경로의 확장자가 이미 압축된 형식인지
+    static boolean hasIncompressibleExtension(String name) {
+        int lastDot = name.lastIndexOf('.');
+        if (lastDot < 0 || lastDot < name.lastIndexOf('/')) return false;
+        return INCOMPRESSIBLE_EXTENSIONS.contains(name.substring(lastDot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    static boolean isWorthwhile(long compressedSize, long originalSize) {
+        return compressedSize < originalSize * MIN_COMPRESSION_RATIO;
+    }
+
+    // 앞부분 표본의 압축률로 판단
+    static boolean sampleCompressesWell(Path path) throws IOException {
+        byte[] sample = new byte[SAMPLE_SIZE];
+        int length;
+        try (InputStream in = Files.newInputStream(path)) {
+            length = in.readNBytes(sample, 0, sample.length);
+        }
+        return sampleCompressesWell(sample, length);
+    }
+
+    // 이미 읽어 둔 앞부분 표본 (sample 의 앞 length 바이트)
+    static boolean sampleCompressesWell(byte[] sample, int length) {
+        return length > 0 && isWorthwhile(ZipStreamWriter.deflate(sample, length).length, length);
+    }
+}
@@ -0,0 +1,91 @@
+package kwonjh0406.joondrive.file.service;
+
+import kwonjh0406.joondrive.file.entity.FileEntity;
+import kwonjh0406.joondrive.file.repository.FileClosureRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 폴더 계층의 조상 관계 색인 (closure table).
+ * 모든 조상-자손 쌍을 저장하므로 순환 참조 검사, 브레드크럼, 하위 트리 조회가 깊이와 무관하게 색인 조회 한 번으로 끝납니다.
+ * 항목 생성/이동/삭제 시 같은 트랜잭션에서 함께 갱신합니다.
+ */
+@Service
+@RequiredArgsConstructor
+public class FileAncestryService {
+
+    private final FileClosureRepository fileClosureRepository;
+
+    // 새로 저장된 항목을 부모 아래에 등록 (parentId 가 null 이면 최상위)
+    @Transactional
+    public void addNode(Long id, Long parentId) {
+        fileClosureRepository.insertNode(id, parentId);
+    }
+
+    // 자기 자신을 포함한 모든 조상 ID (여러 항목을 한 대상으로 옮길 때 순환 검사를 한 번에 하기 위함)
+    public Set<Long> findAncestorIds(Long id) {
+        return new HashSet<>(fileClosureRepository.findAncestorIds(id));
+    }
+
+    // findAncestorIds 와 같지만 조상 행들을 트랜잭션 끝까지 잠그고 커밋된 최신 값을 읽음
+    // 반대 방향으로 동시에 옮기는 요청은 서로의 조상 행에서 기다리므로, 둘 다 통과해 순환이 생기지 않음
+    @Transactional
+    public Set<Long> lockAncestorIds(Long id) {
+        return new HashSet<>(fileClosureRepository.lockAncestorIds(id));
+    }
+
+    // 항목들(하위 트리 포함)을 새 부모 아래로 옮김 (newParentId 가 null 이면 최상위로). 항목 수와 무관하게 최대 두 문장
+    @Transactional
+    public void move(Collection<Long> ids, Long newParentId) {
+        if (ids.isEmpty()) return;
+        fileClosureRepository.detachSubtrees(ids);
+        if (newParentId != null) {
+            fileClosureRepository.attachSubtrees(ids, newParentId);
+        }
+    }
+
+    // 조상 관계가 이미 채워진 하위 트리(복사본 등)를 부모의 조상들과 연결
+    @Transactional
+    public void attachSubtree(Long id, Long parentId) {
+        fileClosureRepository.attachSubtree(id, parentId);
+    }
+
+    @Transactional
+    public void remove(Collection<Long> ids) {
+        if (ids.isEmpty()) return;
+        fileClosureRepository.deleteByNodeIds(ids);
+    }
+
+    // 최상위부터 자기 자신까지의 경로
+    public List<FileEntity> findAncestors(Long id) {
+        return fileClosureRepository.findAncestors(id);
+    }
+
+    // 자기 자신을 포함한 하위 전체
+    public List<FileEntity> findSubtree(Long id) {
+        return fileClosureRepository.findSubtree(id);
+    }
+
+    /**
+     * 색인 도입 전에 만들어진 항목의 조상 관계를 채웁니다.
+     * 이미 채워진 항목은 건너뛰므로 매 기동 시 실행해도 안전합니다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        fileClosureRepository.backfillSelfLinks();
+        // 한 번에 한 단계씩 내려가며 연결
+        int linked;
+        do {
+            linked = fileClosureRepository.backfillParentLinks();
+        } while (linked > 0);
+    }
+}
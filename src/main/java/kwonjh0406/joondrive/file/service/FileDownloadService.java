@@ -0,0 +1,290 @@
+package kwonjh0406.joondrive.file.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import kwonjh0406.joondrive.file.entity.FileEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 파일 본문을 HTTP 응답으로 내보냅니다.
+ * - ETag / Last-Modified 검증 (If-None-Match, If-Modified-Since → 304)
+ * - Range 요청 (단일 구간 206, 다중 구간 multipart/byteranges 206, 범위 오류 416)
+ *   겹치거나 붙은 구간은 합치고, 구간이 너무 많거나 같은 부분을 반복 요청하면 Range 를 무시하고 전체를 보냄
+ * - 원본 그대로 저장된 파일의 전체/단일 구간 응답은 Tomcat sendfile 로 넘겨 커널이 파일에서 소켓으로 바로 보냄
+ *   (sendfile 을 쓸 수 없는 커넥터, 다중 구간, 압축 저장된 파일은 버퍼로 읽어 씀)
+ */
+@Service
+@RequiredArgsConstructor
+public class FileDownloadService {
+
+    // 겹치거나 붙은 구간을 합친 뒤 한 응답에 보낼 최대 구간 수
+    private static final int MAX_RANGES = 16;
+
+    // Tomcat sendfile 요청 속성 (지원 여부는 커넥터가 요청마다 알려줌)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 파일 하나를 응답으로 전송합니다. 압축 저장된 파일은 풀면서 보내며, Range 는 원본 기준 오프셋입니다.
+     * @param etag 파일을 식별하는 강한 ETag (따옴표 포함)
+     * @param contentDisposition Content-Disposition 헤더 값
+     */
+    public void writeFile(HttpServletRequest request, HttpServletResponse response,
+                          FileEntity file, Path filePath, String etag, String contentDisposition) throws IOException {
+        String codec = file.getCodec();
+        long length = codec == null ? Files.size(filePath) : file.getSize();
+        long lastModified = Files.getLastModifiedTime(filePath).toMillis();
+
+        // 조건부 요청 처리: 변경이 없으면 304 (또는 If-Match 불일치 시 412) 후 종료
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+
+        boolean headOnly = "HEAD".equalsIgnoreCase(request.getMethod());
+        List<HttpRange> ranges = resolveRanges(request, etag, lastModified);
+
+        long[][] bounds = null;
+        if (!ranges.isEmpty()) {
+            try {
+                bounds = toBounds(ranges, length);
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+        }
+
+        // Range 없음 (또는 무시): 전체 전송
+        if (bounds == null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setContentLengthLong(length);
+            if (!headOnly) {
+                sendRange(request, response, filePath, codec, 0, length);
+            }
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+
+        // 단일 구간
+        if (bounds.length == 1) {
+            long start = bounds[0][0];
+            long end = bounds[0][1];
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            response.setContentLengthLong(end - start + 1);
+            if (!headOnly) {
+                sendRange(request, response, filePath, codec, start, end - start + 1);
+            }
+            return;
+        }
+
+        // 다중 구간: multipart/byteranges
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        if (headOnly) return;
+
+        ServletOutputStream out = response.getOutputStream();
+        for (long[] bound : bounds) {
+            out.write(("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + MediaType.APPLICATION_OCTET_STREAM_VALUE + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": bytes " + bound[0] + "-" + bound[1] + "/" + length + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            copyRange(filePath, codec, out, bound[0], bound[1] - bound[0] + 1);
+        }
+        out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * 미리보기 이미지(JPEG)를 응답으로 전송합니다.
+     * 내용이 ETag 로 정해지므로 브라우저가 캐시해 두고, 만료 뒤에는 If-None-Match 로 확인합니다. (변경 없으면 304)
+     */
+    public void writePreview(HttpServletRequest request, HttpServletResponse response,
+                             Path imagePath, String etag) throws IOException {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=86400");
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        if (webRequest.checkNotModified(etag)) {
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setContentType(MediaType.IMAGE_JPEG_VALUE);
+        long length = Files.size(imagePath);
+        response.setContentLengthLong(length);
+        if (!"HEAD".equalsIgnoreCase(request.getMethod())) {
+            if (sendfile(request, imagePath, 0, length)) {
+                recordTransfer("preview", length);
+                return;
+            }
+            try (InputStream in = Files.newInputStream(imagePath)) {
+                copy(in, response.getOutputStream(), length, "preview");
+            }
+        }
+    }
+
+    // 강한 ETag: blob 파일은 내용 해시, 그 외에는 파일 식별 정보(파일 ID, 크기, 수정 시각)
+    public String buildETag(FileEntity file, Path filePath) throws IOException {
+        if (file.getBlobHash() != null) {
+            return "\"" + file.getBlobHash() + "\"";
+        }
+        long length = Files.size(filePath);
+        long lastModified = Files.getLastModifiedTime(filePath).toMillis();
+        return "\"" + file.getId() + "-" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    // Range 헤더 해석. If-Range 가 현재 버전과 다르면 Range 를 무시하고 전체를 보냄
+    private List<HttpRange> resolveRanges(HttpServletRequest request, String etag, long lastModified) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || rangeHeader.isBlank()) {
+            return List.of();
+        }
+
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            long ifRangeDate = -1;
+            try {
+                ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+            } catch (IllegalArgumentException e) {
+                // ETag 형식인데 일치하지 않는 경우
+            }
+            // HTTP 날짜는 초 단위이므로 밀리초를 버리고 비교
+            if (ifRangeDate < 0 || lastModified / 1000 * 1000 > ifRangeDate) {
+                return List.of();
+            }
+        }
+
+        try {
+            return HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            // 해석할 수 없는 Range 헤더는 무시 (RFC 9110)
+            return List.of();
+        }
+    }
+
+    // 각 구간을 [시작, 끝] (끝 포함) 오프셋으로 변환해 시작 순으로 정렬하고, 겹치거나 붙은 구간은 합침 (RFC 9110 14.6)
+    // 만족할 수 없는 구간(시작이 파일 끝 이후)은 빼고, 하나도 남지 않으면 IllegalArgumentException (416)
+    // 요청한 길이의 합이 파일보다 길거나(같은 부분 반복 요청) 합친 뒤에도 MAX_RANGES 개를 넘으면 null: Range 를 무시하고 전체 전송
+    private static long[][] toBounds(List<HttpRange> ranges, long length) {
+        List<long[]> satisfiable = new ArrayList<>(ranges.size());
+        long requested = 0;
+        for (HttpRange range : ranges) {
+            long start;
+            long end;
+            try {
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            requested += end - start + 1;
+            satisfiable.add(new long[]{start, end});
+        }
+        if (satisfiable.isEmpty()) {
+            throw new IllegalArgumentException("만족할 수 있는 구간이 없습니다.");
+        }
+        if (requested > length) {
+            return null;
+        }
+
+        satisfiable.sort(Comparator.comparingLong(bound -> bound[0]));
+        List<long[]> merged = new ArrayList<>();
+        for (long[] bound : satisfiable) {
+            long[] last = merged.isEmpty() ? null : merged.getLast();
+            if (last != null && bound[0] <= last[1] + 1) {
+                last[1] = Math.max(last[1], bound[1]);
+            } else {
+                merged.add(bound);
+            }
+        }
+        return merged.size() > MAX_RANGES ? null : merged.toArray(long[][]::new);
+    }
+
+    // 원본 기준 [position, position + count) 구간을 응답 본문 전체로 전송 (Content-Length 는 설정되어 있어야 함)
+    private void sendRange(HttpServletRequest request, HttpServletResponse response, Path filePath, String codec,
+                           long position, long count) throws IOException {
+        if (codec == null && sendfile(request, filePath, position, count)) {
+            recordTransfer("download", count);
+            return;
+        }
+        copyRange(filePath, codec, response.getOutputStream(), position, count);
+    }
+
+    // 커넥터가 sendfile 을 지원하면 파일 구간을 넘기고 true. 본문은 서블릿이 끝난 뒤 커넥터가 보냄
+    private static boolean sendfile(HttpServletRequest request, Path filePath, long position, long count) throws IOException {
+        if (!Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            return false;
+        }
+        request.setAttribute(SENDFILE_FILENAME, filePath.toRealPath().toString());
+        request.setAttribute(SENDFILE_START, position);
+        request.setAttribute(SENDFILE_END, position + count);
+        return true;
+    }
+
+    // 원본 기준 [position, position + count) 구간 전송
+    private void copyRange(Path filePath, String codec, OutputStream out, long position, long count) throws IOException {
+        if (codec == null) {
+            try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+                copy(Channels.newInputStream(channel.position(position)), out, count, "download");
+            }
+            return;
+        }
+
+        // 압축 저장된 파일: 앞부분은 풀어서 건너뛰고, 구간만큼 풀면서 보냄
+        try (InputStream in = BlobService.openContent(filePath, codec)) {
+            in.skipNBytes(position);
+            copy(in, out, count, "download");
+        }
+    }
+
+    private void copy(InputStream in, OutputStream out, long count, String endpoint) throws IOException {
+        long sent = 0;
+        try {
+            byte[] buffer = new byte[64 * 1024];
+            while (sent < count) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, count - sent));
+                if (read < 0) break;
+                out.write(buffer, 0, read);
+                sent += read;
+            }
+        } finally {
+            // 클라이언트가 중간에 끊어도 실제로 보낸 만큼 기록
+            recordTransfer(endpoint, sent);
+        }
+    }
+
+    private void recordTransfer(String endpoint, long bytes) {
+        meterRegistry.summary("joondrive.files.transfer.bytes", "endpoint", endpoint).record(bytes);
+    }
+}
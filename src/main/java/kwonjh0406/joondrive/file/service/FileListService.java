@@ -0,0 +1,123 @@
+package kwonjh0406.joondrive.file.service;
+
+import kwonjh0406.joondrive.file.dto.FileListItemResponse;
+import kwonjh0406.joondrive.file.dto.FileListPageResponse;
+import kwonjh0406.joondrive.file.repository.FileListItemView;
+import kwonjh0406.joondrive.file.repository.FileRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Service;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 폴더 목록을 커서(키셋) 방식으로 나누어 조회합니다.
+ * OFFSET 을 쓰지 않고 마지막 항목의 정렬 키 다음부터 읽으므로, 폴더 크기와 무관하게 페이지 크기만큼만 읽습니다.
+ */
+@Service
+@RequiredArgsConstructor
+public class FileListService {
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final FileRepository fileRepository;
+
+    /**
+     * @param sortType 정렬 기준 (name, type, size)
+     * @param direction 정렬 방향 (asc, desc)
+     * @param pageSize 페이지 크기 (null 이면 기본값)
+     * @param cursor 이전 페이지 응답의 nextCursor (첫 페이지면 null)
+     */
+    public FileListPageResponse listFiles(Long userId, Long parentId, String sortType, String direction,
+                                          Integer pageSize, String cursor) {
+        SortKey sortKey = SortKey.of(sortType);
+        Sort.Direction sortDirection = "desc".equalsIgnoreCase(direction) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        int limit = pageSize == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+
+        ScrollPosition position = cursor == null || cursor.isBlank()
+                ? ScrollPosition.keyset()
+                : decodeCursor(cursor, sortKey);
+
+        Window<FileListItemView> window = fileRepository.findByUserIdAndParentId(userId, parentId, position,
+                Sort.by(sortDirection, sortKey.properties), Limit.of(limit));
+
+        List<FileListItemResponse> items = window.getContent().stream()
+                .map(FileListItemResponse::from)
+                .toList();
+
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            nextCursor = encodeCursor((KeysetScrollPosition) window.positionAt(window.size() - 1), sortKey);
+        }
+        return new FileListPageResponse(items, nextCursor, window.hasNext());
+    }
+
+    // 커서: 정렬 키 값들을 순서대로 URL 인코딩해 ',' 로 잇고 Base64(URL-safe) 로 감쌈
+    // 정렬 키는 모두 null 이 없는 컬럼 (크기는 sortSize), null 이 오면 "null" 문자열로 만들지 않고 실패
+    private String encodeCursor(KeysetScrollPosition position, SortKey sortKey) {
+        Map<String, ?> keys = position.getKeys();
+        StringBuilder raw = new StringBuilder();
+        for (String property : sortKey.properties) {
+            Object value = keys.get(property);
+            if (value == null) {
+                throw new IllegalStateException("정렬 키 " + property + " 가 비어 있습니다.");
+            }
+            if (!raw.isEmpty()) raw.append(',');
+            raw.append(URLEncoder.encode(value.toString(), StandardCharsets.UTF_8));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private KeysetScrollPosition decodeCursor(String cursor, SortKey sortKey) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] values = raw.split(",", -1);
+            if (values.length != sortKey.properties.length) {
+                throw new IllegalArgumentException();
+            }
+
+            Map<String, Object> keys = new LinkedHashMap<>();
+            for (int i = 0; i < values.length; i++) {
+                String property = sortKey.properties[i];
+                String value = URLDecoder.decode(values[i], StandardCharsets.UTF_8);
+                keys.put(property, "id".equals(property) || "sortSize".equals(property) ? Long.valueOf(value) : value);
+            }
+            return ScrollPosition.forward(keys);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("잘못된 커서입니다.");
+        }
+    }
+
+    // 정렬 기준별 키 (마지막은 항상 id 로 순서를 유일하게 만듦)
+    private enum SortKey {
+        NAME("name", "id"),
+        TYPE("fileType", "name", "id"),
+        SIZE("sortSize", "id");
+
+        private final String[] properties;
+
+        SortKey(String... properties) {
+            this.properties = properties;
+        }
+
+        static SortKey of(String sortType) {
+            if (sortType == null) return NAME;
+            return switch (sortType.toLowerCase()) {
+                case "type" -> TYPE;
+                case "size" -> SIZE;
+                default -> NAME;
+            };
+        }
+    }
+}
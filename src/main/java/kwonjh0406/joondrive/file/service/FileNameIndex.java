@@ -0,0 +1,442 @@
+package kwonjh0406.joondrive.file.service;
+
+import kwonjh0406.joondrive.file.dto.FileSearchResult;
+import kwonjh0406.joondrive.file.repository.FileSearchEntryView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 사용자 한 명의 파일/폴더 이름 색인 (메모리).
+ * 이름을 소문자 3-gram 으로 나눠 gram 별 항목 번호(slot) 목록을 두고, 검색어의 3-gram 목록들을 교집합한 뒤 실제로 포함하는지 확인합니다.
+ * 두 글자 검색어("사진", "문서")는 2-gram 목록 하나로 찾고, 한 글자 검색어만 모든 이름을 훑습니다.
+ * 항목마다 부모 ID 를 들고 있어 경로를 DB 조회 없이 만들며, 삭제는 지운 항목에만 표시하고 경로를 만들 때 조상까지 확인합니다.
+ * 처음 불러오는 동안 들어온 변경은 모아 두었다가 불러온 뒤에 적용합니다. (변경은 모두 다시 적용해도 결과가 같음)
+ */
+class FileNameIndex {
+
+    private static final long ROOT = 0;
+    // 경로를 만들 때 따라 올라갈 최대 깊이 (잘못된 부모 관계로 인한 무한 반복 방지)
+    private static final int MAX_DEPTH = 1000;
+
+    // 순위: 이름 전체 일치 > 이름 앞부분 일치 > 단어 앞부분 일치 > 중간 일치
+    private static final int EXACT = 0;
+    private static final int PREFIX = 1;
+    private static final int WORD_PREFIX = 2;
+    private static final int SUBSTRING = 3;
+
+    // 메모리 추정치 (사용자별 색인 캐시의 상한 계산용)
+    // 항목당: 배열 칸, 이름 문자열 두 개의 헤더, id → slot 맵 칸 / 글자당: 문자열 두 개(2바이트씩), 2/3-gram 목록 칸(4바이트씩)
+    private static final int ENTRY_BYTES = 160;
+    private static final int CHAR_BYTES = 12;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object loadLock = new Object();
+    private volatile boolean loaded;
+    private final List<Consumer<FileNameIndex>> pending = new ArrayList<>();
+
+    private int size;
+    private int removedCount;
+    // 지운 항목도 새로 불러오기 전까지 자리를 차지하므로 함께 셈
+    private volatile long estimatedBytes;
+    private long[] ids = new long[1024];
+    private long[] parents = new long[1024];
+    private String[] names = new String[1024];
+    private String[] lowerNames = new String[1024];
+    private boolean[] folders = new boolean[1024];
+    private boolean[] removed = new boolean[1024];
+    private final SlotMap slotById = new SlotMap();
+    private final Postings postings = new Postings();
+
+    /**
+     * 아직 불러오지 않았으면 loader 로 전체 항목을 불러옵니다. 같은 색인을 동시에 여러 번 불러오지 않습니다.
+     */
+    void ensureLoaded(Supplier<List<FileSearchEntryView>> loader) {
+        if (loaded) return;
+        synchronized (loadLock) {
+            if (loaded) return;
+            // DB 조회 중에는 잠금을 잡지 않음 (그 사이 들어온 변경은 pending 에 쌓임)
+            List<FileSearchEntryView> rows = loader.get();
+
+            lock.writeLock().lock();
+            try {
+                for (FileSearchEntryView row : rows) {
+                    put(row.getId(), row.getParentId(), row.getName(), "folder".equals(row.getFileType()));
+                }
+                pending.forEach(change -> change.accept(this));
+                pending.clear();
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * 변경을 적용합니다. 아직 불러오는 중이면 불러온 뒤에 적용합니다.
+     */
+    void apply(Consumer<FileNameIndex> change) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                change.accept(this);
+            } else {
+                pending.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 삭제 표시된 항목이 많아지면 새로 불러오는 편이 메모리와 검색 속도 모두 나음
+    boolean isStale() {
+        return loaded && removedCount > 1024 && removedCount > size / 4;
+    }
+
+    // 이 색인이 차지하는 메모리 추정치 (바이트)
+    long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * 항목을 추가합니다. 이미 있는 항목이면 부모를 바꾸고, 이름이 바뀌었으면 새 이름으로 다시 색인합니다.
+     */
+    void put(long id, Long parentId, String name, boolean folder) {
+        long parent = parentId == null ? ROOT : parentId;
+        int existing = slotById.get(id);
+        if (existing >= 0) {
+            if (name.equals(names[existing])) {
+                parents[existing] = parent;
+                return;
+            }
+            markRemoved(existing);
+        }
+
+        ensureCapacity();
+        int slot = size++;
+        String lowerName = name.toLowerCase(Locale.ROOT);
+        ids[slot] = id;
+        parents[slot] = parent;
+        names[slot] = name;
+        lowerNames[slot] = lowerName;
+        folders[slot] = folder;
+        slotById.put(id, slot);
+        estimatedBytes += ENTRY_BYTES + (long) lowerName.length() * CHAR_BYTES;
+
+        for (int i = 0; i + 2 <= lowerName.length(); i++) {
+            addPosting(bigram(lowerName, i), slot);
+            if (i + 3 <= lowerName.length()) addPosting(trigram(lowerName, i), slot);
+        }
+    }
+
+    void move(Collection<Long> movedIds, Long newParentId) {
+        long parent = newParentId == null ? ROOT : newParentId;
+        for (Long id : movedIds) {
+            int slot = slotById.get(id);
+            if (slot >= 0) parents[slot] = parent;
+        }
+    }
+
+    // 하위 항목은 경로를 만들 때 삭제된 조상으로 걸러짐
+    void remove(Collection<Long> removedIds) {
+        for (Long id : removedIds) {
+            int slot = slotById.remove(id);
+            if (slot >= 0) markRemoved(slot);
+        }
+    }
+
+    /**
+     * 이름에 query(소문자)가 들어 있는 항목을 순위대로 최대 limit 개 찾습니다.
+     */
+    List<FileSearchResult> search(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            // 순위가 가장 낮은 후보가 맨 앞 (limit 개를 넘으면 꺼냄)
+            PriorityQueue<Candidate> top = new PriorityQueue<>(limit + 1, RANKING.reversed());
+            if (query.length() >= 3) {
+                for (int slot : intersect(query)) {
+                    consider(slot, query, limit, top);
+                }
+            } else if (query.length() == 2) {
+                IntList list = postings.get(bigram(query, 0));
+                for (int i = 0; list != null && i < list.size; i++) {
+                    consider(list.values[i], query, limit, top);
+                }
+            } else {
+                for (int slot = 0; slot < size; slot++) {
+                    consider(slot, query, limit, top);
+                }
+            }
+
+            List<Candidate> ranked = new ArrayList<>(top);
+            ranked.sort(RANKING);
+            List<FileSearchResult> results = new ArrayList<>(ranked.size());
+            for (Candidate candidate : ranked) {
+                int slot = candidate.slot();
+                results.add(new FileSearchResult(ids[slot], parents[slot] == ROOT ? null : parents[slot], names[slot],
+                        folders[slot] ? "folder" : "file", candidate.path()));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void consider(int slot, String query, int limit, PriorityQueue<Candidate> top) {
+        if (removed[slot]) return;
+        String lowerName = lowerNames[slot];
+        int index = lowerName.indexOf(query);
+        if (index < 0) return;
+
+        int score = index == 0
+                ? (lowerName.length() == query.length() ? EXACT : PREFIX)
+                : (Character.isLetterOrDigit(lowerName.charAt(index - 1)) ? SUBSTRING : WORD_PREFIX);
+        // 순위 안에 들 때만 경로를 만듦 (삭제된 조상 아래 항목도 여기서 걸러짐)
+        if (top.size() >= limit) {
+            // 흔한 검색어는 대부분 점수와 이름 길이에서 탈락하므로 객체를 만들기 전에 먼저 비교
+            Candidate worst = top.peek();
+            if (score > worst.score() || (score == worst.score() && lowerName.length() > worst.lowerName().length())) return;
+            if (RANKING.compare(new Candidate(slot, score, lowerName, null), worst) >= 0) return;
+        }
+
+        String path = path(slot);
+        if (path == null) return;
+        top.add(new Candidate(slot, score, lowerName, path));
+        if (top.size() > limit) top.poll();
+    }
+
+    // 최상위부터의 경로 ("/폴더/이름"). 조상 중 삭제되었거나 없는 항목이 있으면 null
+    private String path(int slot) {
+        List<String> segments = new ArrayList<>();
+        segments.add(names[slot]);
+        long parent = parents[slot];
+        for (int depth = 0; parent != ROOT; depth++) {
+            int parentSlot = slotById.get(parent);
+            if (parentSlot < 0 || removed[parentSlot] || depth >= MAX_DEPTH) return null;
+            segments.add(names[parentSlot]);
+            parent = parents[parentSlot];
+        }
+
+        StringBuilder path = new StringBuilder();
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            path.append('/').append(segments.get(i));
+        }
+        return path.toString();
+    }
+
+    // query 의 모든 3-gram 을 가진 slot (짧은 목록부터 교집합)
+    private int[] intersect(String query) {
+        List<IntList> lists = new ArrayList<>();
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            IntList list = postings.get(trigram(query, i));
+            if (list == null) return new int[0];
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        int[] result = Arrays.copyOf(lists.getFirst().values, lists.getFirst().size);
+        int length = result.length;
+        for (int i = 1; i < lists.size() && length > 0; i++) {
+            IntList other = lists.get(i);
+            int kept = 0;
+            int j = 0;
+            for (int k = 0; k < length; k++) {
+                int slot = result[k];
+                // 두 목록 모두 오름차순
+                while (j < other.size && other.values[j] < slot) j++;
+                if (j < other.size && other.values[j] == slot) result[kept++] = slot;
+            }
+            length = kept;
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    // 같은 gram 이 이름에 여러 번 나와도 slot 은 한 번만 (slot 은 증가 순으로 추가되므로 마지막 값만 확인)
+    private void addPosting(long gram, int slot) {
+        IntList list = postings.getOrCreate(gram);
+        if (list.size == 0 || list.values[list.size - 1] != slot) {
+            list.add(slot);
+        }
+    }
+
+    private void markRemoved(int slot) {
+        if (!removed[slot]) {
+            removed[slot] = true;
+            removedCount++;
+        }
+    }
+
+    private void ensureCapacity() {
+        if (size < ids.length) return;
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        names = Arrays.copyOf(names, capacity);
+        lowerNames = Arrays.copyOf(lowerNames, capacity);
+        folders = Arrays.copyOf(folders, capacity);
+        removed = Arrays.copyOf(removed, capacity);
+    }
+
+    // 글자(16비트)들을 long 하나로. 2-gram 은 48번 비트로 3-gram 과 구분
+    private static long trigram(String value, int index) {
+        return ((long) value.charAt(index) << 32) | ((long) value.charAt(index + 1) << 16) | value.charAt(index + 2);
+    }
+
+    private static long bigram(String value, int index) {
+        return (1L << 48) | ((long) value.charAt(index) << 16) | value.charAt(index + 1);
+    }
+
+    // 점수 → 짧은 이름 → 이름 순
+    private static final Comparator<Candidate> RANKING = Comparator.comparingInt(Candidate::score)
+            .thenComparingInt(candidate -> candidate.lowerName().length())
+            .thenComparing(Candidate::lowerName)
+            .thenComparingInt(Candidate::slot);
+
+    private record Candidate(int slot, int score, String lowerName, String path) {
+    }
+
+    // gram → slot 목록. 항목 수백만 개를 불러올 때 Long 박싱이 없도록 long 키를 그대로 쓰는 열린 주소 해시 테이블
+    private static final class Postings {
+        private long[] keys = new long[1024];
+        private IntList[] lists = new IntList[1024];
+        private int size;
+
+        private IntList get(long key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; lists[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) return lists[i];
+            }
+            return null;
+        }
+
+        private IntList getOrCreate(long key) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            for (; lists[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) return lists[i];
+            }
+            IntList list = new IntList();
+            keys[i] = key;
+            lists[i] = list;
+            if (++size > keys.length / 2) grow();
+            return list;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            IntList[] oldLists = lists;
+            keys = new long[oldKeys.length * 2];
+            lists = new IntList[oldLists.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldLists[j] == null) continue;
+                int i = hash(oldKeys[j]) & mask;
+                while (lists[i] != null) i = (i + 1) & mask;
+                keys[i] = oldKeys[j];
+                lists[i] = oldLists[j];
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    // 항목 ID → slot. Postings 와 같은 열린 주소 해시 테이블이며, 지울 때 뒤 칸을 당겨 와 탐색 경로를 유지
+    private static final class SlotMap {
+        private static final int EMPTY = -1;
+
+        private long[] keys = new long[1024];
+        private int[] values = filledEmpty(1024);
+        private int size;
+
+        // 없으면 -1
+        private int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = Postings.hash(key) & mask; values[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) return values[i];
+            }
+            return EMPTY;
+        }
+
+        private void put(long key, int value) {
+            int mask = keys.length - 1;
+            int i = Postings.hash(key) & mask;
+            for (; values[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+            }
+            keys[i] = key;
+            values[i] = value;
+            if (++size > keys.length / 2) grow();
+        }
+
+        // 지운 값 (없으면 -1)
+        private int remove(long key) {
+            int mask = keys.length - 1;
+            int i = Postings.hash(key) & mask;
+            for (; values[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) break;
+            }
+            int removed = values[i];
+            if (removed == EMPTY) return EMPTY;
+
+            // 빈 칸이 생기면 뒤에 이어진 항목 중 원래 자리가 빈 칸 이전인 것을 당겨 옴
+            for (int j = (i + 1) & mask; values[j] != EMPTY; j = (j + 1) & mask) {
+                int home = Postings.hash(keys[j]) & mask;
+                boolean between = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+                if (!between) {
+                    keys[i] = keys[j];
+                    values[i] = values[j];
+                    i = j;
+                }
+            }
+            values[i] = EMPTY;
+            size--;
+            return removed;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = filledEmpty(oldValues.length * 2);
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldValues[j] == EMPTY) continue;
+                int i = Postings.hash(oldKeys[j]) & mask;
+                while (values[i] != EMPTY) i = (i + 1) & mask;
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+
+        private static int[] filledEmpty(int length) {
+            int[] values = new int[length];
+            Arrays.fill(values, EMPTY);
+            return values;
+        }
+    }
+
+    // int 목록 (gram 별 slot, 오름차순으로만 추가)
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+}
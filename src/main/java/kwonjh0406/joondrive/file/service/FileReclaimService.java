@@ -0,0 +1,89 @@
+package kwonjh0406.joondrive.file.service;
+
+import kwonjh0406.joondrive.drive.service.DriveService;
+import kwonjh0406.joondrive.file.repository.DeletedFileView;
+import kwonjh0406.joondrive.file.repository.FileClosureRepository;
+import kwonjh0406.joondrive.file.repository.FileRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 삭제 표시된 항목을 백그라운드에서 회수합니다.
+ * 배치마다 행을 잠가서 가져오고(SKIP LOCKED), 같은 트랜잭션에서 blob 참조를 묶어서 줄이고, 이전 방식으로 저장된 파일은 병렬로 지운 뒤,
+ * 행과 조상 관계를 한 번에 삭제하고 사용량 장부도 사용자별로 한 번만 갱신합니다.
+ */
+@Service
+@RequiredArgsConstructor
+public class FileReclaimService {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final FileRepository fileRepository;
+    private final FileClosureRepository fileClosureRepository;
+    private final BlobService blobService;
+    private final DriveService driveService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService fileIoExecutor;
+
+    @Scheduled(fixedDelayString = "${storage.reclaim.interval:PT5S}")
+    public void reclaimDeletedFiles() {
+        Integer reclaimed;
+        do {
+            reclaimed = transactionTemplate.execute(status -> reclaimBatch());
+        } while (reclaimed != null && reclaimed > 0);
+    }
+
+    /**
+     * 삭제 표시된 행을 한 배치 잠가서 회수합니다. 잠금은 행 삭제가 커밋될 때까지 유지되므로,
+     * 여러 노드가 동시에 돌아도 같은 행의 blob 참조를 두 번 줄이지 않습니다.
+     * @return 회수한 행 수 (0 이면 더 없음)
+     */
+    private int reclaimBatch() {
+        List<DeletedFileView> batch = fileRepository.claimDeletedBatch(BATCH_SIZE);
+        if (batch.isEmpty()) return 0;
+
+        List<Long> ids = batch.stream().map(DeletedFileView::getId).toList();
+        Map<String, Long> releasedBlobs = new HashMap<>();
+        Map<Long, Long> freedBytesByUser = new HashMap<>();
+
+        for (DeletedFileView file : batch) {
+            if (!"file".equals(file.getFileType())) continue;
+            if (file.getBlobHash() != null) {
+                releasedBlobs.merge(file.getBlobHash(), 1L, Long::sum);
+            }
+            freedBytesByUser.merge(file.getUserId(), file.getSize() != null ? file.getSize() : 0L, Long::sum);
+        }
+
+        // blob 저장소 도입 전 파일은 직접 삭제 (병렬, 지우지 못한 파일은 남겨 두고 행 정리는 계속 진행)
+        // 롤백되면 다음 주기에 배치 전체를 다시 시도하며, 이미 지운 파일은 건너뜀
+        List<CompletableFuture<Void>> unlinks = batch.stream()
+                .filter(file -> "file".equals(file.getFileType()) && file.getBlobHash() == null && file.getRealPath() != null)
+                .map(file -> CompletableFuture.runAsync(() -> {
+                    try {
+                        Files.deleteIfExists(Paths.get(file.getRealPath()));
+                    } catch (IOException e) {
+                        // 무시
+                    }
+                }, fileIoExecutor))
+                .toList();
+        CompletableFuture.allOf(unlinks.toArray(CompletableFuture[]::new)).join();
+
+        // 참조 수 감소, 행 삭제, 사용량 차감을 잠금과 같은 트랜잭션으로 처리
+        releasedBlobs.forEach(blobService::release);
+        fileClosureRepository.deleteByNodeIds(ids);
+        fileRepository.purgeDeleted(ids);
+        freedBytesByUser.forEach(driveService::decreaseUsedStorage);
+        return batch.size();
+    }
+}
@@ -0,0 +1,148 @@
+package kwonjh0406.joondrive.file.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import kwonjh0406.joondrive.file.dto.FileSearchResult;
+import kwonjh0406.joondrive.file.entity.FileEntity;
+import kwonjh0406.joondrive.file.repository.FileRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 파일/폴더 이름 검색.
+ * 사용자별 이름 색인(FileNameIndex)을 처음 검색할 때 DB 에서 한 번 불러오고, 이후 생성/이동/삭제는 커밋 후 색인에 바로 반영합니다.
+ * 색인은 최근에 검색한 사용자 순(LRU)으로 들고 있되, 사용자 수가 아닌 색인들의 추정 메모리 합계(storage.search.max-index-bytes)로 제한합니다.
+ * 밀려난 사용자는 다음 검색 때 다시 불러옵니다.
+ */
+@Service
+@RequiredArgsConstructor
+public class FileSearchService {
+
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 200;
+
+    private final FileRepository fileRepository;
+    private final MeterRegistry meterRegistry;
+
+    // 모든 사용자 색인을 합한 추정 메모리 상한 (기본 256MB)
+    @Value("${storage.search.max-index-bytes:268435456}")
+    private long maxIndexBytes;
+
+    // 접근 순서 (가장 오래 검색하지 않은 사용자가 앞)
+    private final Map<Long, FileNameIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 이름에 검색어가 들어 있는 항목을 찾습니다. (대소문자 구분 없음)
+     * 순위: 이름 전체 일치, 이름 앞부분 일치, 단어 앞부분 일치, 중간 일치 순이며 같으면 짧은 이름이 먼저입니다.
+     * @param limit 최대 결과 수 (null 이면 50, 최대 200)
+     */
+    public List<FileSearchResult> search(Long userId, String query, Integer limit) {
+        if (!StringUtils.hasText(query)) {
+            throw new RuntimeException("검색어를 입력해주세요.");
+        }
+        String normalized = query.strip().toLowerCase(Locale.ROOT);
+        int size = limit == null ? DEFAULT_LIMIT : Math.clamp(limit, 1, MAX_LIMIT);
+
+        return meterRegistry.timer("joondrive.search.duration").record(() -> {
+            FileNameIndex index = indexFor(userId);
+            index.ensureLoaded(() -> fileRepository.findSearchEntries(userId));
+            evictOverBudget(userId);
+            return index.search(normalized, size);
+        });
+    }
+
+    // 새로 만든 파일/폴더 (업로드, 폴더 생성)
+    void onCreated(FileEntity file) {
+        onCreated(file.getUserId(), List.of(file));
+    }
+
+    // 한 번에 만든 항목들 (복사). 부모가 먼저 오지 않아도 됨
+    void onCreated(Long userId, Collection<FileEntity> files) {
+        List<SearchEntry> entries = files.stream()
+                .map(file -> new SearchEntry(file.getId(), file.getParentId(), file.getName(), "folder".equals(file.getFileType())))
+                .toList();
+        afterCommit(userId, index -> entries.forEach(entry -> index.put(entry.id(), entry.parentId(), entry.name(), entry.folder())));
+    }
+
+    void onMoved(Long userId, Collection<Long> ids, Long newParentId) {
+        List<Long> moved = List.copyOf(ids);
+        afterCommit(userId, index -> index.move(moved, newParentId));
+    }
+
+    // 이름이 바뀐 항목들 (이동하며 대상 폴더의 이름과 겹쳐 번호가 붙은 경우)
+    void onRenamed(Long userId, Collection<FileEntity> files) {
+        onCreated(userId, files);
+    }
+
+    // 삭제한 최상위 항목들 (하위 항목은 검색 시 경로로 걸러짐)
+    void onDeleted(Long userId, Collection<Long> ids) {
+        List<Long> removed = List.copyOf(ids);
+        afterCommit(userId, index -> index.remove(removed));
+    }
+
+    private FileNameIndex indexFor(Long userId) {
+        synchronized (indexes) {
+            FileNameIndex index = indexes.get(userId);
+            // 삭제 표시가 많이 쌓인 색인은 버리고 새로 불러옴
+            if (index == null || index.isStale()) {
+                index = new FileNameIndex();
+                indexes.put(userId, index);
+            }
+            return index;
+        }
+    }
+
+    // 상한을 넘으면 오래 검색하지 않은 사용자 색인부터 버림. 방금 검색한 사용자의 색인은 혼자 상한을 넘어도 남김
+    private void evictOverBudget(Long keepUserId) {
+        synchronized (indexes) {
+            long total = 0;
+            for (FileNameIndex index : indexes.values()) {
+                total += index.estimatedBytes();
+            }
+            Iterator<Map.Entry<Long, FileNameIndex>> eldest = indexes.entrySet().iterator();
+            while (total > maxIndexBytes && eldest.hasNext()) {
+                Map.Entry<Long, FileNameIndex> entry = eldest.next();
+                if (entry.getKey().equals(keepUserId)) continue;
+                total -= entry.getValue().estimatedBytes();
+                eldest.remove();
+                meterRegistry.counter("joondrive.search.evictions").increment();
+            }
+        }
+    }
+
+    // 롤백된 변경이 색인에 남지 않도록 커밋 후 반영. 색인이 없는 사용자는 다음 검색 때 DB 에서 불러오므로 건너뜀
+    private void afterCommit(Long userId, Consumer<FileNameIndex> change) {
+        Runnable apply = () -> {
+            FileNameIndex index;
+            synchronized (indexes) {
+                index = indexes.get(userId);
+            }
+            if (index != null) index.apply(change);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    // 엔티티 대신 색인에 필요한 값만 들고 커밋을 기다림
+    private record SearchEntry(Long id, Long parentId, String name, boolean folder) {
+    }
+}
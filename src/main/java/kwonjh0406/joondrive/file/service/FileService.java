@@ -0,0 +1,680 @@
+package kwonjh0406.joondrive.file.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import kwonjh0406.joondrive.drive.service.DriveService;
+import kwonjh0406.joondrive.drive.service.QuotaReservation;
+import kwonjh0406.joondrive.drive.service.StorageQuotaService;
+import kwonjh0406.joondrive.file.dto.UploadResponse;
+import kwonjh0406.joondrive.file.entity.BlobEntity;
+import kwonjh0406.joondrive.file.entity.FileClosure;
+import kwonjh0406.joondrive.file.entity.FileEntity;
+import kwonjh0406.joondrive.file.repository.BlobRepository;
+import kwonjh0406.joondrive.file.repository.FileBulkInsertRepository;
+import kwonjh0406.joondrive.file.repository.FileRepository;
+import kwonjh0406.joondrive.file.repository.NameUsageView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@RequiredArgsConstructor
+public class FileService {
+
+    // 복사 시 한 번에 보내는 INSERT 행 수 / IN 목록 크기
+    private static final int COPY_BATCH_SIZE = 1000;
+
+    private final FileRepository fileRepository;
+    private final DriveService driveService;
+    private final StorageQuotaService storageQuotaService;
+    private final BlobService blobService;
+    private final FileAncestryService fileAncestryService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ThumbnailService thumbnailService;
+    private final FileSearchService fileSearchService;
+    private final FileBulkInsertRepository fileBulkInsertRepository;
+    private final BlobRepository blobRepository;
+
+    /**
+     * multipart 로 올라온 파일들을 저장합니다.
+     * 파일 내용을 힙에 올리지 않고 컨테이너가 받아둔 임시 파일을 옮긴 뒤, 해시를 계산해 blob 저장소에 넣습니다.
+     * 잘 줄어드는 파일(텍스트, 로그 등)은 저장 전에 압축합니다.
+     * 파일 복사, 해시 계산, 압축은 트랜잭션 밖에서 하고, 등록만 한 트랜잭션으로 묶어 DB 커넥션을 짧게 씁니다.
+     * @return 업로드 결과 (파일 수, 바이트 수, 처리 속도)
+     */
+    public UploadResponse uploadFiles(Long userId, Long parentId, List<MultipartFile> files) throws IOException {
+        long startedAt = System.nanoTime();
+
+        // 파일을 받기 전에 업로드 위치부터 검증
+        checkParentFolder(userId, parentId);
+
+        // 업로드할 파일들의 총 크기 계산
+        long totalUploadSize = files.stream()
+                .filter(file -> !file.isEmpty())
+                .mapToLong(MultipartFile::getSize)
+                .sum();
+
+        // 기록 전에 용량을 예약해 같은 사용자의 동시 업로드가 함께 한도를 넘지 못하게 함
+        QuotaReservation reservation = storageQuotaService.reserve(userId, totalUploadSize);
+
+        List<ReceivedFile> received = new ArrayList<>();
+        try {
+            for (MultipartFile multipartFile : files) {
+                if (multipartFile.isEmpty()) continue;
+
+                String originalName = StringUtils.cleanPath(multipartFile.getOriginalFilename());
+                Path tempFile = blobService.newTempFile();
+
+                // 같은 파일시스템이면 임시 파일 rename, 아니면 스트림 복사 (메모리 사용량 일정)
+                multipartFile.transferTo(tempFile);
+                String hash = blobService.hash(tempFile);
+                long size = multipartFile.getSize();
+                String codec = blobService.compressIfWorthwhile(tempFile, originalName, hash, size);
+                received.add(new ReceivedFile(originalName, tempFile, hash, size, codec));
+            }
+
+            registerReceivedFiles(userId, parentId, received);
+            reservation.commit();
+        } catch (IOException | RuntimeException e) {
+            reservation.release();
+            deleteTempFiles(received);
+            throw e;
+        }
+
+        long uploadedSize = received.stream().mapToLong(ReceivedFile::size).sum();
+        recordTransfer("upload", uploadedSize);
+        return UploadResponse.of(received.size(), uploadedSize, System.nanoTime() - startedAt);
+    }
+
+    /**
+     * 요청 본문(raw body)을 그대로 하나의 파일로 저장합니다.
+     * 소켓에서 읽은 데이터를 FileChannel 로 바로 흘려보내므로 파일 크기와 무관하게 메모리 사용량이 일정합니다.
+     * 내용 해시는 수신과 동시에 계산합니다. 느린 클라이언트가 DB 커넥션을 붙잡지 않도록 수신은 트랜잭션 밖에서 합니다.
+     * @param contentLength 요청의 Content-Length (할당량 검증 및 수신 완료 확인에 사용)
+     * @return 업로드 결과 (파일 수, 바이트 수, 처리 속도)
+     */
+    public UploadResponse uploadStream(Long userId, Long parentId, String fileName,
+                                       long contentLength, InputStream inputStream) throws IOException {
+        long startedAt = System.nanoTime();
+
+        if (contentLength < 0) {
+            throw new RuntimeException("Content-Length 헤더가 필요합니다.");
+        }
+        if (fileName == null || fileName.isBlank()) {
+            throw new RuntimeException("파일명이 없습니다.");
+        }
+        checkParentFolder(userId, parentId);
+
+        QuotaReservation reservation = storageQuotaService.reserve(userId, contentLength);
+
+        String originalName = StringUtils.cleanPath(fileName);
+        long written = 0;
+        try {
+            Path tempFile = blobService.newTempFile();
+            DigestInputStream digestInputStream = blobService.digesting(inputStream);
+
+            try (ReadableByteChannel source = Channels.newChannel(digestInputStream);
+                 FileChannel target = FileChannel.open(tempFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                while (written < contentLength) {
+                    long transferred = target.transferFrom(source, written, contentLength - written);
+                    if (transferred <= 0) break; // 클라이언트가 본문을 끝까지 보내지 않음
+                    written += transferred;
+                }
+            } catch (IOException e) {
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+
+            if (written != contentLength) {
+                Files.deleteIfExists(tempFile);
+                throw new RuntimeException("업로드가 중간에 끊겼습니다. (" + written + "/" + contentLength + " 바이트)");
+            }
+
+            String hash = blobService.toHex(digestInputStream.getMessageDigest());
+            ReceivedFile receivedFile;
+            try {
+                String codec = blobService.compressIfWorthwhile(tempFile, originalName, hash, written);
+                receivedFile = new ReceivedFile(originalName, tempFile, hash, written, codec);
+            } catch (IOException e) {
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+            try {
+                registerReceivedFiles(userId, parentId, List.of(receivedFile));
+            } catch (IOException | RuntimeException e) {
+                deleteTempFiles(List.of(receivedFile));
+                throw e;
+            }
+            reservation.commit();
+        } catch (IOException | RuntimeException e) {
+            reservation.release();
+            throw e;
+        }
+
+        recordTransfer("upload.stream", written);
+        return UploadResponse.of(1, written, System.nanoTime() - startedAt);
+    }
+
+    /**
+     * 임시 파일로 받아둔 내용을 드라이브에 등록합니다. (분할 업로드 커밋에서 사용)
+     * 해시 계산과 압축은 트랜잭션 밖에서 하고, 등록만 한 트랜잭션으로 묶습니다.
+     * 용량은 호출한 쪽(분할 업로드 세션)이 이미 잡아 두었으므로 따로 예약하지 않습니다.
+     * @param tempFile 등록할 임시 파일 (blob 저장소로 옮겨지거나, 같은 내용이 이미 있으면 삭제됨)
+     * @param claim 등록 트랜잭션 안에서 먼저 실행할 작업 (잡아 둔 용량을 내려놓는 등). 예외를 던지면 등록하지 않음
+     * @return 저장된 파일 엔티티
+     */
+    public FileEntity registerUploadedFile(Long userId, Long parentId, String originalName, Path tempFile, long size,
+                                           Runnable claim) throws IOException {
+        String hash = blobService.hash(tempFile);
+        String codec = blobService.compressIfWorthwhile(tempFile, originalName, hash, size);
+        try {
+            return transactionTemplate.execute(status -> {
+                claim.run();
+                String name = siblingNames(userId, parentId).allocate(originalName);
+                try {
+                    FileEntity file = storeFile(userId, parentId, name, tempFile, hash, size, codec);
+                    driveService.increaseUsedStorage(userId, size);
+                    return file;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 폴더를 생성합니다.
+     * @param parentId 상위 폴더 ID (null 이면 최상위)
+     * @return 생성된 폴더
+     */
+    @Transactional
+    public FileEntity createFolder(Long userId, Long parentId, String name) {
+        if (parentId != null) {
+            getOwnedFolder(userId, parentId);
+        }
+
+        // 같은 폴더에 같은 이름이 있으면 번호를 붙임
+        String folderName = siblingNames(userId, parentId).allocate(name);
+
+        FileEntity folder = new FileEntity();
+        folder.setUserId(userId);
+        folder.setParentId(parentId);
+        folder.setFileType("folder");
+        folder.setName(folderName);
+        folder.setLogicalPath(folderName);
+        folder.setSize(0L);
+        folder.setRealPath(null);
+
+        fileRepository.save(folder);
+        fileAncestryService.addNode(folder.getId(), parentId);
+        fileSearchService.onCreated(folder);
+        return folder;
+    }
+
+    /**
+     * 파일/폴더를 다른 폴더로 이동합니다. (moveFiles 와 같은 검사, 잠금, 이름 충돌 처리)
+     * @param newParentId 대상 폴더 ID (null 이면 최상위)
+     */
+    @Transactional
+    public void moveFile(Long userId, Long fileId, Long newParentId) {
+        moveFiles(userId, List.of(fileId), newParentId);
+    }
+
+    /**
+     * 여러 파일/폴더를 한 트랜잭션에서 같은 폴더로 이동합니다.
+     * 소유권은 IN 쿼리 한 번, 순환 참조는 대상 폴더의 조상 목록 한 번으로 검사하고 parentId 는 벌크 UPDATE 한 번으로 바꿉니다.
+     * 대상 폴더의 조상 행을 잠근 뒤 검사하므로, 두 폴더를 서로의 안으로 동시에 옮겨도 순환이 생기지 않습니다.
+     * 대상 폴더에 같은 이름이 있으면 업로드와 같은 규칙으로 번호를 붙입니다.
+     * @param newParentId 대상 폴더 ID (null 이면 최상위)
+     * @return 이동한 항목 수
+     */
+    @Transactional
+    public int moveFiles(Long userId, List<Long> fileIds, Long newParentId) {
+        if (fileIds == null || fileIds.isEmpty()) {
+            throw new RuntimeException("이동할 파일을 선택해주세요.");
+        }
+
+        Set<Long> ids = new LinkedHashSet<>(fileIds);
+        Map<Long, FileEntity> files = new HashMap<>();
+        for (FileEntity file : fileRepository.findAllById(ids)) {
+            files.put(file.getId(), file);
+        }
+        if (files.size() != ids.size()) {
+            throw new RuntimeException("파일을 찾을 수 없습니다.");
+        }
+        for (FileEntity file : files.values()) {
+            if (!file.getUserId().equals(userId)) {
+                throw new RuntimeException("파일 이동 권한이 없습니다.");
+            }
+        }
+
+        // 사용자 행을 먼저 잠가 같은 사용자의 이동/이름 할당을 한 줄로 세움 (잠금 순서: 사용자 → 대상 폴더 조상)
+        UniqueNameAllocator names = siblingNames(userId, newParentId);
+
+        if (newParentId != null) {
+            getOwnedFolder(userId, newParentId);
+
+            // 대상 폴더 자신과 그 조상 중에 이동할 항목이 있으면 순환 참조 (잠그며 읽은 최신 조상 목록 기준)
+            Set<Long> targetAncestors = fileAncestryService.lockAncestorIds(newParentId);
+            if (ids.contains(newParentId)) {
+                throw new RuntimeException("자기 자신을 부모 폴더로 설정할 수 없습니다.");
+            }
+            for (Long id : ids) {
+                if (targetAncestors.contains(id)) {
+                    throw new RuntimeException("하위 폴더를 부모 폴더로 설정할 수 없습니다.");
+                }
+            }
+        }
+
+        // 대상 폴더에 이미 있는 이름과 겹치면 번호를 붙여 옮김 (이미 대상 폴더에 있는 항목은 이름 그대로)
+        List<FileEntity> renamed = new ArrayList<>();
+        for (Long id : ids) {
+            FileEntity file = files.get(id);
+            if (Objects.equals(file.getParentId(), newParentId)) continue;
+            String name = names.allocate(file.getName());
+            if (!name.equals(file.getName())) {
+                fileRepository.updateParentIdAndName(userId, id, newParentId, name);
+                file.setName(name);
+                file.setLogicalPath(name);
+                file.setParentId(newParentId);
+                renamed.add(file);
+            }
+        }
+
+        int moved = fileRepository.updateParentId(userId, ids, newParentId);
+        // 조상 관계는 항목 수와 무관하게 한 번에 떼어 내고 붙임
+        fileAncestryService.move(ids, newParentId);
+        fileSearchService.onMoved(userId, ids, newParentId);
+        if (!renamed.isEmpty()) {
+            fileSearchService.onRenamed(userId, renamed);
+        }
+        return moved;
+    }
+
+    /**
+     * 여러 파일/폴더를 하위 트리까지 다른 폴더에 복사합니다. 파일 내용은 다시 쓰지 않습니다.
+     * 복사본은 원본과 같은 blob 을 가리키고 blob 참조 수만 늘리며, 행과 조상 관계는 단계(깊이)별 배치 INSERT 로 넣습니다.
+     * blob 저장소 도입 전 파일은 같은 디렉터리에 하드 링크를 만들어 가리킵니다.
+     * 복사한 용량만큼 사용량이 늘어나므로 한도를 검사합니다.
+     * 용량 예약은 따로 커넥션을 잡아 최신 사용량을 읽으므로, 복사 계획까지 세운 뒤 예약하고 나서 쓰기 트랜잭션을 엽니다.
+     * @param targetParentId 대상 폴더 ID (null 이면 최상위)
+     * @return 복사한 항목 수 (하위 항목 포함)
+     */
+    public int copyFiles(Long userId, List<Long> fileIds, Long targetParentId) {
+        if (fileIds == null || fileIds.isEmpty()) {
+            throw new RuntimeException("복사할 파일을 선택해주세요.");
+        }
+
+        Set<Long> ids = new LinkedHashSet<>(fileIds);
+        List<FileEntity> roots = fileRepository.findAllById(ids);
+        if (roots.size() != ids.size()) {
+            throw new RuntimeException("파일을 찾을 수 없습니다.");
+        }
+        for (FileEntity root : roots) {
+            if (!root.getUserId().equals(userId)) {
+                throw new RuntimeException("파일 복사 권한이 없습니다.");
+            }
+        }
+
+        if (targetParentId != null) {
+            getOwnedFolder(userId, targetParentId);
+
+            // 폴더를 자기 자신이나 하위 폴더 안으로 복사하는 것 방지
+            Set<Long> targetAncestors = fileAncestryService.findAncestorIds(targetParentId);
+            for (Long id : ids) {
+                if (targetAncestors.contains(id)) {
+                    throw new RuntimeException("하위 폴더로는 복사할 수 없습니다.");
+                }
+            }
+        }
+
+        long startedAt = System.nanoTime();
+        FileTree tree = loadSubtree(userId, ids);
+        CopyPlan plan = planCopy(roots, tree, targetParentId);
+
+        QuotaReservation reservation = storageQuotaService.reserve(userId, plan.totalSize());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                nameRootCopies(userId, plan);
+                insertCopies(plan);
+                addBlobReferences(plan.copies());
+                driveService.increaseUsedStorage(userId, plan.totalSize());
+                fileSearchService.onCreated(userId, plan.copies());
+                reservation.commit();
+            });
+        } catch (RuntimeException e) {
+            reservation.release();
+            throw e;
+        }
+
+        meterRegistry.timer("joondrive.files.copy").record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        meterRegistry.summary("joondrive.files.copy.entries").record(plan.copies().size());
+        return plan.copies().size();
+    }
+
+    /**
+     * 파일/폴더를 하위 트리까지 삭제합니다.
+     * 이 요청에서는 삭제 표시만 한 문장으로 남기고 바로 반환하며, 실제 행/파일 정리와 사용량 차감은
+     * FileReclaimService 가 백그라운드에서 수행합니다.
+     * @return 삭제 표시된 항목 수
+     */
+    @Transactional
+    public int deleteFiles(Long userId, List<Long> ids) {
+        if (ids == null || ids.isEmpty()) return 0;
+        int deleted = fileRepository.markSubtreeDeleted(userId, ids);
+        fileSearchService.onDeleted(userId, ids);
+        return deleted;
+    }
+
+    /**
+     * 최상위부터 지정한 항목까지의 경로를 조회합니다.
+     */
+    public List<FileEntity> getBreadcrumbs(Long userId, Long fileId) {
+        FileEntity file = fileRepository.findById(fileId)
+                .orElseThrow(() -> new RuntimeException("파일을 찾을 수 없습니다."));
+        if (!file.getUserId().equals(userId)) {
+            throw new RuntimeException("파일 조회 권한이 없습니다.");
+        }
+        return fileAncestryService.findAncestors(fileId);
+    }
+
+    /**
+     * 지정한 항목들과 그 하위 전체를 한 번의 쿼리로 불러옵니다.
+     * @param rootIds 시작 항목 ID 목록 (다른 사용자의 항목은 제외됨)
+     */
+    public FileTree loadSubtree(Long userId, Collection<Long> rootIds) {
+        if (rootIds.isEmpty()) {
+            return new FileTree(List.of());
+        }
+        return new FileTree(meterRegistry.timer("joondrive.files.subtree.load")
+                .record(() -> fileRepository.findSubtree(userId, rootIds)));
+    }
+
+    // 원본 트리를 따라 복사본 엔티티를 만든다 (ID 와 최상위 복사본의 최종 이름은 아직 없음). 선택한 항목끼리 포함 관계가 있으면 각각 복사됨
+    private CopyPlan planCopy(List<FileEntity> roots, FileTree tree, Long targetParentId) {
+        List<List<CopyNode>> levels = new ArrayList<>();
+        List<FileEntity> copies = new ArrayList<>();
+        long totalSize = 0;
+
+        List<CopyNode> level = new ArrayList<>();
+        for (FileEntity root : roots) {
+            level.add(new CopyNode(root, copyOf(root, root.getName()), null));
+        }
+        while (!level.isEmpty()) {
+            levels.add(level);
+            List<CopyNode> next = new ArrayList<>();
+            for (CopyNode node : level) {
+                copies.add(node.copy());
+                if ("file".equals(node.source().getFileType())) {
+                    totalSize += node.copy().getSize();
+                }
+                for (FileEntity child : tree.getChildren(node.source().getId())) {
+                    next.add(new CopyNode(child, copyOf(child, child.getName()), node));
+                }
+            }
+            level = next;
+        }
+        return new CopyPlan(targetParentId, levels, copies, totalSize);
+    }
+
+    private FileEntity copyOf(FileEntity source, String name) {
+        FileEntity copy = new FileEntity();
+        copy.setUserId(source.getUserId());
+        copy.setFileType(source.getFileType());
+        copy.setName(name);
+        copy.setLogicalPath(name);
+        copy.setSize(source.getSize() != null ? source.getSize() : 0L);
+        copy.setRealPath(source.getRealPath());
+        copy.setBlobHash(source.getBlobHash());
+        copy.setCodec(source.getCodec());
+        return copy;
+    }
+
+    // 대상 폴더에서 겹치지 않게 최상위 복사본 이름을 정함 (사용자 행을 잠그므로 쓰기 트랜잭션 안에서 호출)
+    private void nameRootCopies(Long userId, CopyPlan plan) {
+        UniqueNameAllocator names = siblingNames(userId, plan.targetParentId());
+        for (CopyNode root : plan.levels().getFirst()) {
+            String name = names.allocate(root.source().getName());
+            root.copy().setName(name);
+            root.copy().setLogicalPath(name);
+        }
+    }
+
+    // 부모가 먼저 ID 를 받아야 하므로 깊이별로 배치 INSERT, 이어서 조상 관계도 배치로 넣음
+    private void insertCopies(CopyPlan plan) {
+        for (List<CopyNode> level : plan.levels()) {
+            for (int from = 0; from < level.size(); from += COPY_BATCH_SIZE) {
+                List<CopyNode> chunk = level.subList(from, Math.min(from + COPY_BATCH_SIZE, level.size()));
+                List<FileEntity> files = new ArrayList<>(chunk.size());
+                for (CopyNode node : chunk) {
+                    node.copy().setParentId(node.parent() == null ? plan.targetParentId() : node.parent().copy().getId());
+                    if ("file".equals(node.copy().getFileType()) && node.copy().getBlobHash() == null
+                            && node.copy().getRealPath() != null) {
+                        node.copy().setRealPath(linkLegacyFile(Path.of(node.copy().getRealPath())));
+                    }
+                    files.add(node.copy());
+                }
+                fileBulkInsertRepository.insertFiles(files);
+            }
+        }
+
+        // 복사된 트리 안의 조상 관계 (자기 자신 포함)
+        List<FileClosure> links = new ArrayList<>(COPY_BATCH_SIZE);
+        for (List<CopyNode> level : plan.levels()) {
+            for (CopyNode node : level) {
+                int depth = 0;
+                for (CopyNode ancestor = node; ancestor != null; ancestor = ancestor.parent()) {
+                    FileClosure link = new FileClosure();
+                    link.setAncestorId(ancestor.copy().getId());
+                    link.setDescendantId(node.copy().getId());
+                    link.setDepth(depth++);
+                    links.add(link);
+                }
+                if (links.size() >= COPY_BATCH_SIZE) {
+                    fileBulkInsertRepository.insertClosureLinks(links);
+                    links = new ArrayList<>(COPY_BATCH_SIZE);
+                }
+            }
+        }
+        fileBulkInsertRepository.insertClosureLinks(links);
+
+        // 대상 폴더의 조상들과 연결 (복사한 최상위 항목마다 한 문장)
+        if (plan.targetParentId() != null) {
+            for (CopyNode root : plan.levels().getFirst()) {
+                fileAncestryService.attachSubtree(root.copy().getId(), plan.targetParentId());
+            }
+        }
+    }
+
+    // 같은 blob 을 가리키는 복사본 수만큼 참조 수 증가 (증가량이 같은 blob 끼리 묶어 한 문장씩)
+    private void addBlobReferences(List<FileEntity> copies) {
+        Map<String, Long> countByHash = new HashMap<>();
+        for (FileEntity copy : copies) {
+            if (copy.getBlobHash() != null) {
+                countByHash.merge(copy.getBlobHash(), 1L, Long::sum);
+            }
+        }
+        Map<Long, List<String>> hashesByCount = new HashMap<>();
+        countByHash.forEach((hash, count) -> hashesByCount.computeIfAbsent(count, c -> new ArrayList<>()).add(hash));
+
+        hashesByCount.forEach((count, hashes) -> {
+            for (int from = 0; from < hashes.size(); from += COPY_BATCH_SIZE) {
+                List<String> chunk = hashes.subList(from, Math.min(from + COPY_BATCH_SIZE, hashes.size()));
+                // 원본이 그 사이 삭제·회수되어 정리 중인 blob 이 있으면 복사 전체를 되돌림
+                if (blobRepository.addReferences(chunk, count) != chunk.size()) {
+                    throw new RuntimeException("복사 중 원본 파일이 삭제되었습니다. 다시 시도해주세요.");
+                }
+            }
+        });
+    }
+
+    // blob 저장소 도입 전 파일: 같은 디렉터리에 하드 링크(다른 파일시스템이면 복사)를 만들고, 롤백되면 지움
+    private String linkLegacyFile(Path source) {
+        Path link = source.resolveSibling(source.getFileName() + "." + UUID.randomUUID());
+        try {
+            try {
+                Files.createLink(link, source);
+            } catch (UnsupportedOperationException | IOException e) {
+                Files.copy(source, link);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) return;
+                try {
+                    Files.deleteIfExists(link);
+                } catch (IOException e) {
+                    // 무시
+                }
+            }
+        });
+        return link.toString();
+    }
+
+    // 본인 소유의 폴더인지 확인 후 반환
+    private FileEntity getOwnedFolder(Long userId, Long folderId) {
+        // 새로운 부모 폴더 조회
+        FileEntity folder = fileRepository.findById(folderId)
+                .orElseThrow(() -> new RuntimeException("대상 폴더를 찾을 수 없습니다."));
+
+        // 사용자 소유권 확인
+        if (!folder.getUserId().equals(userId)) {
+            throw new RuntimeException("대상 폴더에 대한 권한이 없습니다.");
+        }
+
+        // 폴더 타입 확인 (파일은 부모가 될 수 없음)
+        if (!"folder".equals(folder.getFileType())) {
+            throw new RuntimeException("대상은 폴더여야 합니다.");
+        }
+        return folder;
+    }
+
+    // 업로드할 위치가 본인 소유의 폴더인지 검증 (null 이면 최상위)
+    public void checkParentFolder(Long userId, Long parentId) {
+        if (parentId != null) {
+            getOwnedFolder(userId, parentId);
+        }
+    }
+
+    // 폴더 안에서 겹치지 않는 이름을 정하는 할당기 (이미 있는 이름은 원래 이름별로 필요할 때 조회)
+    // 같은 사용자의 다른 요청이 같은 번호를 고르지 않도록 사용자 행을 트랜잭션 끝까지 잠금 (놓친 경우는 유니크 인덱스가 막음)
+    UniqueNameAllocator siblingNames(Long userId, Long parentId) {
+        driveService.lockUser(userId);
+        return new UniqueNameAllocator(name -> {
+            UniqueNameAllocator.SuffixPattern pattern = UniqueNameAllocator.suffixPattern(name);
+            NameUsageView usage = parentId == null
+                    ? fileRepository.findRootNameUsage(userId, name, pattern.likePattern(), pattern.prefixLength(), pattern.suffixLength())
+                    : fileRepository.findNameUsage(userId, parentId, name, pattern.likePattern(), pattern.prefixLength(), pattern.suffixLength());
+            return new UniqueNameAllocator.ExistingNames(usage.getTaken() > 0,
+                    usage.getMaxSuffix() != null ? usage.getMaxSuffix() : 0);
+        });
+    }
+
+    // 엔드포인트별 전송 바이트 (joondrive.files.transfer.bytes)
+    private void recordTransfer(String endpoint, long bytes) {
+        meterRegistry.summary("joondrive.files.transfer.bytes", "endpoint", endpoint).record(bytes);
+    }
+
+    // 받아 둔 임시 파일들을 한 트랜잭션에서 등록하고 사용량 장부를 갱신
+    private void registerReceivedFiles(Long userId, Long parentId, List<ReceivedFile> files) throws IOException {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // 같은 요청 안에서 같은 이름이 여러 번 와도 폴더 조회는 이름별로 한 번만
+                UniqueNameAllocator names = siblingNames(userId, parentId);
+                long totalSize = 0;
+                for (ReceivedFile file : files) {
+                    try {
+                        storeFile(userId, parentId, names.allocate(file.name()), file.tempFile(), file.hash(), file.size(), file.codec());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    totalSize += file.size();
+                }
+                driveService.increaseUsedStorage(userId, totalSize);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // 등록하지 못한 임시 파일 정리 (이미 blob 저장소로 옮겨진 파일은 남아 있지 않음)
+    private void deleteTempFiles(List<ReceivedFile> files) {
+        for (ReceivedFile file : files) {
+            try {
+                Files.deleteIfExists(file.tempFile());
+            } catch (IOException e) {
+                // 무시
+            }
+        }
+    }
+
+    // 임시 파일을 blob 저장소에 넣고, 그 blob 을 가리키는 파일 엔티티를 만든다
+    private FileEntity storeFile(Long userId, Long parentId, String originalName,
+                                 Path tempFile, String hash, long size, String codec) throws IOException {
+        BlobEntity blob = blobService.store(tempFile, hash, size, codec);
+        FileEntity file = saveFileEntity(userId, parentId, originalName, blob, size);
+        // 이미지면 커밋 후 미리보기를 미리 만들어 둠
+        thumbnailService.scheduleAfterCommit(file);
+        return file;
+    }
+
+    private FileEntity saveFileEntity(Long userId, Long parentId, String originalName, BlobEntity blob, long size) {
+        FileEntity file = new FileEntity();
+        file.setUserId(userId);
+        file.setParentId(parentId);
+        file.setFileType("file");
+        file.setName(originalName);
+        file.setLogicalPath(originalName);
+        file.setRealPath(blob.getPath());
+        file.setBlobHash(blob.getHash());
+        file.setCodec(blob.getCodec());
+        file.setSize(size);
+        fileRepository.save(file);
+        fileAncestryService.addNode(file.getId(), parentId);
+        fileSearchService.onCreated(file);
+        return file;
+    }
+
+    // 복사할 원본과 그 복사본 (parent: 부모의 복사 노드, 최상위면 null)
+    private record CopyNode(FileEntity source, FileEntity copy, CopyNode parent) {
+    }
+
+    // levels: 깊이별 복사 노드, copies: 모든 복사본, totalSize: 늘어날 사용량
+    private record CopyPlan(Long targetParentId, List<List<CopyNode>> levels, List<FileEntity> copies, long totalSize) {
+    }
+
+    // 수신을 마치고 등록을 기다리는 임시 파일 (codec: 임시 파일을 압축해 두었으면 그 형식)
+    private record ReceivedFile(String name, Path tempFile, String hash, long size, String codec) {
+    }
+}
@@ -0,0 +1,42 @@
+package kwonjh0406.joondrive.file.service;
+
+import kwonjh0406.joondrive.file.entity.FileEntity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 한 번에 조회한 하위 트리를 메모리에서 탐색하기 위한 구조.
+ * ZIP 생성 등 재귀 탐색에서 폴더마다 DB 를 다시 조회하지 않도록 부모 ID 별 자식 목록을 미리 묶어 둔다.
+ */
+public class FileTree {
+
+    private final Map<Long, FileEntity> filesById = new HashMap<>();
+    private final Map<Long, List<FileEntity>> childrenByParentId = new HashMap<>();
+
+    public FileTree(Collection<FileEntity> files) {
+        for (FileEntity file : files) {
+            filesById.put(file.getId(), file);
+        }
+        for (FileEntity file : filesById.values()) {
+            if (file.getParentId() != null) {
+                childrenByParentId.computeIfAbsent(file.getParentId(), id -> new ArrayList<>()).add(file);
+            }
+        }
+    }
+
+    public FileEntity get(Long id) {
+        return filesById.get(id);
+    }
+
+    public List<FileEntity> getChildren(Long parentId) {
+        return childrenByParentId.getOrDefault(parentId, List.of());
+    }
+
+    public Collection<FileEntity> getAll() {
+        return filesById.values();
+    }
+}
@@ -0,0 +1,53 @@
+package kwonjh0406.joondrive.file.service;
+
+import kwonjh0406.joondrive.file.repository.DuplicateNameView;
+import kwonjh0406.joondrive.file.repository.FileRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * 같은 폴더 안 이름 중복을 막는 유니크 인덱스(uk_file_sibling_name)를 기존 DB 에 적용합니다.
+ * 인덱스 도입 전에는 같은 폴더에 같은 이름이 들어갈 수 있었으므로, ddl 갱신은 인덱스를 만들지 못하고 로그만 남깁니다.
+ * 기동 시 이름 열의 collation 을 이름 할당기와 같은 기준(대소문자만 무시, 악센트 구분)으로 맞추고,
+ * 인덱스가 없으면 나중에 만든 중복 항목에 번호를 붙인 뒤 인덱스를 만듭니다.
+ * 인덱스를 만들지 못하면 예외로 기동을 멈춥니다. (중복 방지 없이 동작하지 않도록)
+ */
+@Service
+@RequiredArgsConstructor
+public class SiblingNameMigrationService {
+
+    private static final String NAME_COLLATION = "utf8mb4_0900_as_ci";
+    private static final int BATCH_SIZE = 500;
+
+    private final FileRepository fileRepository;
+    private final FileService fileService;
+    private final TransactionTemplate transactionTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureSiblingNameIndex() {
+        if (!NAME_COLLATION.equals(fileRepository.findNameCollation())) {
+            fileRepository.useNameCollation();
+        }
+        if (fileRepository.countSiblingNameIndex() > 0) {
+            return;
+        }
+
+        List<DuplicateNameView> duplicates;
+        while (!(duplicates = fileRepository.findDuplicateSiblingNames(BATCH_SIZE)).isEmpty()) {
+            for (DuplicateNameView duplicate : duplicates) {
+                // 평소 이름 할당과 같은 잠금/번호 규칙 (항목마다 짧은 트랜잭션)
+                transactionTemplate.executeWithoutResult(status -> {
+                    String name = fileService.siblingNames(duplicate.getUserId(), duplicate.getParentId())
+                            .allocate(duplicate.getName());
+                    fileRepository.updateParentIdAndName(duplicate.getUserId(), duplicate.getId(), duplicate.getParentId(), name);
+                });
+            }
+        }
+        fileRepository.createSiblingNameIndex();
+    }
+}
@@ -0,0 +1,223 @@
+package kwonjh0406.joondrive.file.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import kwonjh0406.joondrive.file.entity.BlobEntity;
+import kwonjh0406.joondrive.file.entity.FileEntity;
+import kwonjh0406.joondrive.file.repository.BlobRepository;
+import kwonjh0406.joondrive.file.repository.FileRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * 디스크 저장 구조를 샤딩된 blob 경로({base}/blobs/ab/cd/{hash})로 옮기는 온라인 이전 작업.
+ * storage.layout.migration.enabled=true 일 때 주기마다 배치 하나씩 처리하며, 서비스를 멈출 필요가 없습니다.
+ * <ul>
+ *     <li>샤딩 전 blob({base}/blobs/{hash}): 새 경로에 하드 링크를 만들고 blob 과 파일 행의 경로를 바꿉니다.</li>
+ *     <li>blob 저장소 도입 전 파일({base}/{userId}/…): 해시를 계산해 blob 으로 등록하고 파일 행을 연결합니다.</li>
+ * </ul>
+ * 이전 경로는 바로 지우지 않고 유예 시간 뒤에 지우므로, 바뀌기 전 경로를 읽은 요청도 파일을 열 수 있습니다.
+ * (이미 열린 파일은 지워진 뒤에도 끝까지 읽힘. 오래 걸리는 ZIP 내보내기는 이전 경로가 없으면 파일 행에서 새 경로를 다시 읽음)
+ */
+@Service
+@RequiredArgsConstructor
+public class StorageLayoutMigrationService {
+
+    @Value("${storage.base-path}")
+    private String BASE_STORAGE_PATH;
+
+    @Value("${storage.layout.migration.enabled:false}")
+    private boolean enabled;
+
+    @Value("${storage.layout.migration.batch-size:200}")
+    private int batchSize;
+
+    @Value("${storage.layout.migration.unlink-grace:PT1M}")
+    private Duration unlinkGrace;
+
+    private final BlobService blobService;
+    private final BlobRepository blobRepository;
+    private final FileRepository fileRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // 아래 상태는 이 작업 스레드에서만 사용 (fixedDelay 라 실행이 겹치지 않음)
+    private final Deque<PendingUnlink> pendingUnlinks = new ArrayDeque<>();
+    // 키셋 위치: 옮기지 못한 항목(원본 파일 없음 등)이 매번 배치를 채우지 않도록 끝까지 간 뒤 처음부터 다시 훑음
+    private String lastBlobHash = "";
+    private long lastFileId = 0;
+    private boolean orphansCleaned;
+
+    @Scheduled(fixedDelayString = "${storage.layout.migration.interval:PT30S}")
+    public void migrateBatch() {
+        if (!enabled) return;
+
+        unlinkExpired();
+
+        int migrated = migrateFlatBlobs() + migrateLegacyFiles();
+        if (migrated == 0 && pendingUnlinks.isEmpty() && !orphansCleaned) {
+            // 재시작 등으로 유예 목록을 잃은 이전 경로 정리 (모두 옮긴 뒤 한 번)
+            cleanOrphans();
+            orphansCleaned = true;
+        }
+    }
+
+    private int migrateFlatBlobs() {
+        String flatDir = blobService.getBlobRoot().toString() + File.separator;
+        List<String> hashes = blobRepository.findFlatHashes(flatDir, lastBlobHash, batchSize);
+        lastBlobHash = hashes.isEmpty() ? "" : hashes.getLast();
+
+        int migrated = 0;
+        for (String hash : hashes) {
+            Path oldPath = Paths.get(flatDir + hash);
+            Path newPath = blobService.getBlobPath(hash);
+            Boolean moved = transactionTemplate.execute(status -> {
+                // 등록/정리 작업과 같은 행 잠금을 잡은 뒤 다시 확인
+                BlobEntity blob = blobRepository.findForUpdate(hash).orElse(null);
+                if (blob == null || !oldPath.toString().equals(blob.getPath())) return false;
+                if (!linkIfAbsent(newPath, oldPath)) return false;
+
+                blob.setPath(newPath.toString());
+                fileRepository.updateRealPathByBlobHash(hash, newPath.toString());
+                return true;
+            });
+            if (Boolean.TRUE.equals(moved)) {
+                scheduleUnlink(oldPath);
+                migrated++;
+            }
+        }
+        meterRegistry.counter("joondrive.storage.migrated", "kind", "blob").increment(migrated);
+        return migrated;
+    }
+
+    private int migrateLegacyFiles() {
+        List<FileEntity> files = fileRepository.findLegacyFiles(lastFileId, batchSize);
+        lastFileId = files.isEmpty() ? 0 : files.getLast().getId();
+
+        int migrated = 0;
+        for (FileEntity file : files) {
+            Path oldPath = Paths.get(file.getRealPath());
+            String hash;
+            long size;
+            try {
+                if (!Files.exists(oldPath)) continue;
+                // 해시 계산은 트랜잭션 밖에서 (커넥션을 잡지 않음)
+                hash = blobService.hash(oldPath);
+                size = Files.size(oldPath);
+            } catch (IOException e) {
+                continue; // 다음 순회에서 다시 시도
+            }
+
+            Boolean attached = transactionTemplate.execute(status -> {
+                Path blobPath = blobService.getBlobPath(hash);
+                blobRepository.upsertReference(hash, blobPath.toString(), size, null);
+                BlobEntity blob = blobRepository.findById(hash)
+                        .orElseThrow(() -> new IllegalStateException("blob 등록 실패: " + hash));
+                // 같은 내용의 blob 이 이미 있으면 그 경로와 저장 형식을 그대로 씀
+                Path target = Paths.get(blob.getPath());
+                if (fileRepository.attachBlob(file.getId(), hash, target.toString(), blob.getCodec()) == 0
+                        || !linkIfAbsent(target, oldPath)) {
+                    // 그 사이 삭제/연결된 파일이면 참조 증가까지 되돌림
+                    status.setRollbackOnly();
+                    return false;
+                }
+                return true;
+            });
+            if (Boolean.TRUE.equals(attached)) {
+                scheduleUnlink(oldPath);
+                migrated++;
+            }
+        }
+        meterRegistry.counter("joondrive.storage.migrated", "kind", "legacy").increment(migrated);
+        return migrated;
+    }
+
+    // 새 경로가 없으면 원본을 하드 링크(다른 파일시스템이면 복사)로 만든다. 원본도 없으면 false
+    private boolean linkIfAbsent(Path target, Path source) {
+        try {
+            if (Files.exists(target)) return true;
+            if (!Files.exists(source)) return false;
+            Files.createDirectories(target.getParent());
+            try {
+                Files.createLink(target, source);
+            } catch (UnsupportedOperationException | IOException e) {
+                Path temp = target.resolveSibling(target.getFileName() + ".migrating");
+                Files.copy(source, temp);
+                Files.move(temp, target);
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void scheduleUnlink(Path path) {
+        pendingUnlinks.add(new PendingUnlink(path, System.nanoTime() + unlinkGrace.toNanos()));
+    }
+
+    private void unlinkExpired() {
+        long now = System.nanoTime();
+        while (!pendingUnlinks.isEmpty() && now - pendingUnlinks.peek().unlinkAt() >= 0) {
+            try {
+                Files.deleteIfExists(pendingUnlinks.poll().path());
+            } catch (IOException e) {
+                // 남은 파일은 정리 단계에서 다시 확인
+            }
+        }
+    }
+
+    // 어떤 행도 가리키지 않는 샤딩 전 blob 과 이전 사용자 디렉터리의 파일 삭제
+    private void cleanOrphans() {
+        Path base = Paths.get(BASE_STORAGE_PATH);
+        Set<Path> candidates = new HashSet<>();
+        try (Stream<Path> blobs = Files.list(blobService.getBlobRoot())) {
+            blobs.filter(Files::isRegularFile).forEach(candidates::add);
+        } catch (IOException e) {
+            // blobs 디렉터리가 없음
+        }
+        try (Stream<Path> userDirs = Files.list(base)) {
+            for (Path userDir : userDirs.filter(dir -> Files.isDirectory(dir) && dir.getFileName().toString().matches("\\d+")).toList()) {
+                try (Stream<Path> files = Files.walk(userDir)) {
+                    files.filter(Files::isRegularFile).forEach(candidates::add);
+                }
+            }
+        } catch (IOException e) {
+            return;
+        }
+
+        // 경로마다 조회하지 않고 배치 단위로 참조 중인 경로를 한 번에 가져와 비교
+        List<String> paths = candidates.stream().map(Path::toString).toList();
+        for (int from = 0; from < paths.size(); from += batchSize) {
+            List<String> batch = paths.subList(from, Math.min(from + batchSize, paths.size()));
+            Set<String> referenced = new HashSet<>(blobRepository.findReferencedPaths(batch));
+            referenced.addAll(fileRepository.findReferencedRealPaths(batch));
+            for (String path : batch) {
+                if (referenced.contains(path)) continue;
+                try {
+                    Files.deleteIfExists(Path.of(path));
+                } catch (IOException e) {
+                    // 무시
+                }
+            }
+        }
+    }
+
+    private record PendingUnlink(Path path, long unlinkAt) {
+    }
+}
@@ -0,0 +1,129 @@
+package kwonjh0406.joondrive.file.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * 미리보기 이미지를 담는 크기 제한 LRU 디스크 캐시 ({base}/.thumbnails/ab/{key}.jpg).
+ * 전체 크기가 한도를 넘으면 가장 오래 쓰이지 않은 항목부터 지웁니다.
+ * 시작할 때 디스크에 남아 있는 항목을 수정 시각 순으로 다시 불러옵니다.
+ */
+@Component
+class ThumbnailCache {
+
+    private final Path dir;
+    private final long maxBytes;
+
+    // 키 → 파일 크기 (접근 순서)
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    ThumbnailCache(@Value("${storage.base-path}") String basePath,
+                   @Value("${storage.thumbnail.cache-size:512MB}") DataSize maxSize) throws IOException {
+        this.dir = Paths.get(basePath).resolve(".thumbnails");
+        this.maxBytes = maxSize.toBytes();
+        Files.createDirectories(dir);
+        load();
+    }
+
+    /**
+     * 캐시된 파일 경로. 없으면 null
+     */
+    Path get(String key) {
+        synchronized (entries) {
+            Long size = entries.get(key);
+            if (size == null) return null;
+
+            Path path = path(key);
+            if (!Files.exists(path)) {
+                entries.remove(key);
+                totalBytes -= size;
+                return null;
+            }
+            return path;
+        }
+    }
+
+    void put(String key, byte[] data) throws IOException {
+        Path path = path(key);
+        Files.createDirectories(path.getParent());
+        // 읽는 쪽이 덜 쓰인 파일을 보지 않도록 임시 파일에 쓴 뒤 rename
+        Path temp = dir.resolve(UUID.randomUUID() + ".tmp");
+        Files.write(temp, data);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        synchronized (entries) {
+            Long previous = entries.put(key, (long) data.length);
+            totalBytes += data.length - (previous == null ? 0 : previous);
+            evict();
+        }
+    }
+
+    // entries 잠금 안에서 호출. 지우는 중인 파일을 이미 열어 둔 응답은 끝까지 읽을 수 있음
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue();
+            try {
+                Files.deleteIfExists(path(eldest.getKey()));
+            } catch (IOException e) {
+                // 무시
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(dir, 2)) {
+            files = paths.filter(Files::isRegularFile).toList();
+        }
+
+        List<Path> cached = files.stream()
+                .filter(file -> {
+                    if (!file.getFileName().toString().endsWith(".tmp")) return true;
+                    // 쓰다 만 임시 파일
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        // 무시
+                    }
+                    return false;
+                })
+                .sorted(Comparator.comparingLong(ThumbnailCache::lastModified))
+                .toList();
+
+        synchronized (entries) {
+            for (Path file : cached) {
+                String name = file.getFileName().toString();
+                long size = file.toFile().length();
+                entries.put(name.substring(0, name.length() - ".jpg".length()), size);
+                totalBytes += size;
+            }
+            evict();
+        }
+    }
+
+    private Path path(String key) {
+        return dir.resolve(key.substring(0, 2)).resolve(key + ".jpg");
+    }
+
+    private static long lastModified(Path file) {
+        return file.toFile().lastModified();
+    }
+}
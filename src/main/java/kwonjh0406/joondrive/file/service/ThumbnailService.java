@@ -0,0 +1,293 @@
+package kwonjh0406.joondrive.file.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import kwonjh0406.joondrive.file.entity.FileEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 이미지 파일의 미리보기(JPEG)를 정해진 크기별로 만들어 ThumbnailCache 에 넣습니다.
+ * 업로드가 커밋되면 미리보기 작업 풀(대기열 크기 제한)에서 미리 만들어 두고,
+ * 캐시에 없는 미리보기를 요청받으면 같은 풀에서 만든 뒤 돌려줍니다.
+ * 미리보기는 blob 해시 기준으로 만들므로 같은 내용의 파일은 한 번만 만듭니다.
+ */
+@Service
+@RequiredArgsConstructor
+public class ThumbnailService {
+
+    private static final int LARGEST = 1280;
+    // 이름 → 긴 변의 최대 픽셀 수 (큰 것부터)
+    private static final Map<String, Integer> SIZES = orderedSizes();
+    private static final float JPEG_QUALITY = 0.85f;
+
+    // JDK ImageIO 가 기본으로 읽을 수 있는 형식
+    private static final Set<String> SUPPORTED_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "bmp", "wbmp", "tif", "tiff");
+
+    private final ThumbnailCache thumbnailCache;
+    private final ExecutorService thumbnailExecutor;
+    private final MeterRegistry meterRegistry;
+
+    // 같은 blob 의 미리보기를 동시에 여러 번 만들지 않도록
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    // 읽을 수 없는 이미지는 요청마다 다시 시도하지 않음
+    private final Set<String> failedHashes = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > 10_000;
+        }
+    });
+
+    public static boolean isSupported(String fileName) {
+        int lastDot = fileName.lastIndexOf('.');
+        return lastDot >= 0 && SUPPORTED_EXTENSIONS.contains(fileName.substring(lastDot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    public static boolean isValidSize(String size) {
+        return SIZES.containsKey(size);
+    }
+
+    /**
+     * 업로드 트랜잭션이 커밋된 뒤 미리보기를 만들도록 예약합니다. 작업 풀이 가득 차 있으면 건너뜁니다. (요청 시 생성)
+     */
+    void scheduleAfterCommit(FileEntity file) {
+        if (file.getBlobHash() == null || !isSupported(file.getName())) return;
+
+        String hash = file.getBlobHash();
+        ImageSource source = new ImageSource(Paths.get(file.getRealPath()), file.getCodec());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    prefetch(hash, source);
+                }
+            });
+        } else {
+            prefetch(hash, source);
+        }
+    }
+
+    /**
+     * 미리보기 파일 경로를 돌려줍니다. 캐시에 없으면 만들 때까지 기다립니다.
+     * @param size small / medium / large
+     */
+    public Path getPreview(FileEntity file, String size) {
+        if (!isValidSize(size)) {
+            throw new RuntimeException("지원하지 않는 미리보기 크기입니다.");
+        }
+        if (file.getBlobHash() == null || !isSupported(file.getName())) {
+            throw new RuntimeException("미리보기를 지원하지 않는 파일입니다.");
+        }
+
+        String hash = file.getBlobHash();
+        Path cached = thumbnailCache.get(key(hash, size));
+        if (cached != null) {
+            meterRegistry.counter("joondrive.thumbnail.cache", "result", "hit").increment();
+            return cached;
+        }
+        meterRegistry.counter("joondrive.thumbnail.cache", "result", "miss").increment();
+
+        try {
+            generateAsync(hash, new ImageSource(Paths.get(file.getRealPath()), file.getCodec())).join();
+        } catch (RejectedExecutionException e) {
+            throw new RuntimeException("미리보기를 만드는 중입니다. 잠시 후 다시 시도하세요.");
+        } catch (CompletionException e) {
+            // 실패 원인은 아래에서 캐시에 없는 것으로 처리
+        }
+
+        cached = thumbnailCache.get(key(hash, size));
+        if (cached == null) {
+            throw new RuntimeException("미리보기를 만들 수 없는 파일입니다.");
+        }
+        return cached;
+    }
+
+    // 미리보기 ETag: blob 해시와 크기로 내용이 정해짐
+    public String buildETag(FileEntity file, String size) {
+        return "\"" + key(file.getBlobHash(), size) + "\"";
+    }
+
+    private void prefetch(String hash, ImageSource source) {
+        try {
+            generateAsync(hash, source);
+        } catch (RejectedExecutionException e) {
+            // 작업 풀이 바쁘면 미리 만들지 않고 요청 시 생성
+        }
+    }
+
+    private CompletableFuture<Void> generateAsync(String hash, ImageSource source) {
+        if (isFailed(hash)) return CompletableFuture.completedFuture(null);
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        CompletableFuture<Void> running = inFlight.putIfAbsent(hash, future);
+        if (running != null) return running;
+
+        try {
+            thumbnailExecutor.execute(() -> {
+                try {
+                    generate(hash, source);
+                    future.complete(null);
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(hash, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 대기열이 가득 참
+            inFlight.remove(hash, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+        return future;
+    }
+
+    // 미리보기 작업 스레드에서 실행: 원본을 한 번만 읽어 큰 크기부터 차례로 줄여 가며 저장
+    private void generate(String hash, ImageSource source) {
+        boolean allCached = SIZES.keySet().stream().allMatch(size -> thumbnailCache.get(key(hash, size)) != null);
+        if (allCached) return;
+
+        long startedAt = System.nanoTime();
+        BufferedImage image;
+        try {
+            image = read(source);
+        } catch (IOException | RuntimeException e) {
+            image = null; // 손상되었거나 지원하지 않는 이미지
+        }
+        if (image == null) {
+            markFailed(hash);
+            return;
+        }
+
+        try {
+            for (Map.Entry<String, Integer> size : SIZES.entrySet()) {
+                image = scale(image, size.getValue());
+                thumbnailCache.put(key(hash, size.getKey()), encodeJpeg(image));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        meterRegistry.timer("joondrive.thumbnail.generate").record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    // 가장 큰 미리보기의 2배 정도 해상도만 남기도록 픽셀을 건너뛰며 읽음 (큰 사진도 원본 해상도로 메모리에 올리지 않음)
+    private static BufferedImage read(ImageSource source) throws IOException {
+        // 압축 저장된 파일(BMP, TIFF 등)은 풀면서 읽음
+        try (InputStream content = source.codec() == null ? null : BlobService.openContent(source.path(), source.codec());
+             ImageInputStream in = ImageIO.createImageInputStream(content == null ? source.path().toFile() : content)) {
+            if (in == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, longest / (LARGEST * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // 긴 변이 maxSide 를 넘으면 비율을 유지해 줄임. 투명 영역은 흰색 배경으로 (JPEG)
+    private static BufferedImage scale(BufferedImage image, int maxSide) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double ratio = Math.min(1.0, (double) maxSide / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+        if (ratio == 1.0 && image.getType() == BufferedImage.TYPE_INT_RGB) return image;
+
+        BufferedImage scaled = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, targetWidth, targetHeight);
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    private boolean isFailed(String hash) {
+        synchronized (failedHashes) {
+            return failedHashes.contains(hash);
+        }
+    }
+
+    private void markFailed(String hash) {
+        synchronized (failedHashes) {
+            failedHashes.add(hash);
+        }
+    }
+
+    private static String key(String hash, String size) {
+        return hash + "-" + size;
+    }
+
+    private static Map<String, Integer> orderedSizes() {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        sizes.put("large", LARGEST);
+        sizes.put("medium", 480);
+        sizes.put("small", 160);
+        return Collections.unmodifiableMap(sizes);
+    }
+
+    // 원본 파일 경로와 저장 형식
+    private record ImageSource(Path path, String codec) {
+    }
+}
@@ -0,0 +1,113 @@
+package kwonjh0406.joondrive.file.service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 같은 범위(ZIP 하나, 폴더 하나) 안에서 겹치지 않는 이름을 정합니다.
+ * 이미 쓰인 이름이면 "이름(1).확장자", "이름(2).확장자" … 순으로 붙이며, 원래 이름별로 다음 번호를 기억해 두므로
+ * 같은 이름이 몇 번 들어오든 매번 처음부터 다시 세지 않습니다. 번호 상한이 없어 중복 이름을 만들지 않습니다.
+ * 이미 있는 이름(DB 폴더 등)은 원래 이름별로 "그 이름이 있는지, 붙은 번호 중 가장 큰 값" 만 받아 그 다음 번호부터 씁니다.
+ * 대소문자만 다른 이름은 같은 이름으로 봅니다. (이름 열의 collation utf8mb4_0900_as_ci, 대소문자를 구분하지 않는 파일시스템과 맞춤)
+ * 악센트가 다른 이름("é", "e")은 DB 에서도 다른 이름입니다.
+ * 폴더 이름은 '/' 로 끝나는 것으로 구분합니다. (ZIP 항목 경로)
+ */
+public class UniqueNameAllocator {
+
+    private static final char LIKE_ESCAPE = '!';
+
+    private final Set<String> usedNames = new HashSet<>();
+    private final Map<String, Long> nextSuffix = new HashMap<>();
+    // 원래 이름별로 처음 한 번, 이미 있는 이름 중 충돌할 수 있는 것들의 요약을 불러옴
+    private final Function<String, ExistingNames> existingNames;
+    private final Set<String> loaded = new HashSet<>();
+
+    public UniqueNameAllocator() {
+        this(name -> ExistingNames.NONE);
+    }
+
+    public UniqueNameAllocator(Function<String, ExistingNames> existingNames) {
+        this.existingNames = existingNames;
+    }
+
+    /**
+     * 겹치지 않는 이름을 정하고 사용 중으로 표시합니다.
+     */
+    public String allocate(String name) {
+        String key = key(name);
+        if (loaded.add(key)) {
+            ExistingNames existing = existingNames.apply(name);
+            if (existing.taken()) {
+                usedNames.add(key);
+            }
+            nextSuffix.merge(key, existing.maxSuffix() + 1, Math::max);
+        }
+        if (usedNames.add(key)) {
+            return name;
+        }
+
+        String[] parts = split(name);
+        long suffix = nextSuffix.getOrDefault(key, 1L);
+        String candidate;
+        // 번호는 계속 증가만 하므로, 같은 범위에서 이미 쓴 번호를 건너뛰는 비용은 전체에서 한 번씩만 듦
+        do {
+            candidate = parts[0] + "(" + suffix++ + ")" + parts[1];
+        } while (!usedNames.add(key(candidate)));
+        nextSuffix.put(key, suffix);
+        return candidate;
+    }
+
+    /**
+     * name 에 번호를 붙인 이름들을 찾는 조건. likePattern 은 "이름(%).확장자" 이며 이스케이프 문자는 '!' 입니다.
+     * prefixLength/suffixLength 는 번호 앞/뒤 부분의 글자(code point) 수로, 번호 자리를 잘라 내는 데 씁니다.
+     */
+    public static SuffixPattern suffixPattern(String name) {
+        String[] parts = split(name);
+        return new SuffixPattern(escapeLike(parts[0]) + "(%)" + escapeLike(parts[1]),
+                parts[0].codePointCount(0, parts[0].length()), parts[1].codePointCount(0, parts[1].length()));
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    // [번호 앞부분, 번호 뒷부분(확장자, 폴더면 '/')]
+    private static String[] split(String name) {
+        if (name.endsWith("/")) {
+            return new String[]{name.substring(0, name.length() - 1), "/"};
+        }
+        // 확장자는 경로의 마지막 이름 안에서만 찾고, 숨김 파일(".bashrc")은 확장자로 보지 않음
+        int nameStart = name.lastIndexOf('/') + 1;
+        int lastDot = name.lastIndexOf('.');
+        if (lastDot > nameStart) {
+            return new String[]{name.substring(0, lastDot), name.substring(lastDot)};
+        }
+        return new String[]{name, ""};
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * @param taken 이름 그대로 이미 있는지
+     * @param maxSuffix 이미 있는 "이름(n).확장자" 중 가장 큰 n (없으면 0)
+     */
+    public record ExistingNames(boolean taken, long maxSuffix) {
+        static final ExistingNames NONE = new ExistingNames(false, 0);
+    }
+
+    public record SuffixPattern(String likePattern, int prefixLength, int suffixLength) {
+    }
+}
@@ -0,0 +1,371 @@
+package kwonjh0406.joondrive.file.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import kwonjh0406.joondrive.drive.service.QuotaReservation;
+import kwonjh0406.joondrive.drive.service.StorageQuotaService;
+import kwonjh0406.joondrive.file.dto.CreateUploadSessionRequest;
+import kwonjh0406.joondrive.file.dto.UploadSessionResponse;
+import kwonjh0406.joondrive.file.dto.UploadSessionResponse.ReceivedRange;
+import kwonjh0406.joondrive.file.entity.FileEntity;
+import kwonjh0406.joondrive.file.entity.UploadChunk;
+import kwonjh0406.joondrive.file.entity.UploadSession;
+import kwonjh0406.joondrive.file.repository.UploadChunkRepository;
+import kwonjh0406.joondrive.file.repository.UploadSessionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 이어받기가 가능한 분할 업로드.
+ * 세션 생성 시 최종 크기만큼의 임시 파일을 만들어 두고, 각 조각은 해당 오프셋에 바로 기록합니다.
+ * 조각은 순서와 무관하게 병렬로 올 수 있으며, 커밋 시 임시 파일을 blob 저장소로 rename 하므로 다시 복사하지 않습니다.
+ * 세션이 남아 있는 동안 그 크기만큼의 용량이 사용자에게 잡혀 있고, 커밋하면 같은 트랜잭션에서 사용량으로 넘어갑니다.
+ * 커밋은 먼저 세션을 커밋 중으로 표시해 이후의 조각 쓰기/취소/다른 커밋을 막고, 이미 시작된 조각 쓰기가 끝난 뒤에 해시를 계산합니다.
+ * (진행 중인 쓰기는 임시 파일이 있는 이 서버의 메모리에서 셈)
+ */
+@Service
+@RequiredArgsConstructor
+public class UploadSessionService {
+
+    // 오래된 미완료 세션 보관 시간
+    private static final int SESSION_EXPIRE_HOURS = 24;
+
+    @Value("${storage.base-path}")
+    private String BASE_STORAGE_PATH;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final UploadChunkRepository uploadChunkRepository;
+    private final FileService fileService;
+    private final StorageQuotaService storageQuotaService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // 세션별 진행 중인 조각 쓰기 수 (쓰기가 없으면 항목 없음)
+    private final ConcurrentHashMap<String, ActiveWrites> activeWrites = new ConcurrentHashMap<>();
+
+    /**
+     * 업로드 세션을 생성합니다.
+     * 세션 크기만큼의 용량을 세션이 끝날 때(커밋, 취소, 만료)까지 잡아 두므로, 조각을 받는 동안 다른 업로드가 그 용량을 쓰지 못합니다.
+     * 용량 예약이 따로 커넥션을 잡으므로 트랜잭션 없이 동작하고, 세션 행 저장만 저장소의 트랜잭션으로 커밋합니다.
+     */
+    public UploadSessionResponse createSession(Long userId, CreateUploadSessionRequest request) throws IOException {
+        if (request.getFileName() == null || request.getFileName().isBlank()) {
+            throw new RuntimeException("파일명이 없습니다.");
+        }
+        if (request.getSize() == null || request.getSize() < 0) {
+            throw new RuntimeException("파일 크기가 올바르지 않습니다.");
+        }
+
+        fileService.checkParentFolder(userId, request.getParentId());
+
+        // 세션 행이 저장되어 보일 때까지는 메모리 예약으로 용량을 잡아 둠 (커밋 후 해제되면 세션 행이 이어받음)
+        QuotaReservation reservation = storageQuotaService.reserve(userId, request.getSize());
+
+        String sessionId = UUID.randomUUID().toString();
+        Path tempPath = getUploadTempPath().resolve(sessionId + ".part");
+        try {
+            // 최종 크기만큼 미리 잡아두어 각 조각을 자기 위치에 바로 쓸 수 있게 함
+            try (RandomAccessFile raf = new RandomAccessFile(tempPath.toFile(), "rw")) {
+                raf.setLength(request.getSize());
+            }
+
+            UploadSession session = new UploadSession();
+            session.setId(sessionId);
+            session.setUserId(userId);
+            session.setParentId(request.getParentId());
+            session.setFileName(StringUtils.cleanPath(request.getFileName()));
+            session.setTotalSize(request.getSize());
+            session.setTempPath(tempPath.toString());
+            session.setReceivedBytes(0L);
+            uploadSessionRepository.save(session);
+            reservation.commit();
+
+            return toResponse(session, List.of());
+        } catch (IOException | RuntimeException e) {
+            reservation.release();
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+    }
+
+    /**
+     * 세션의 수신 현황을 조회합니다. 연결이 끊긴 뒤 빠진 구간만 다시 보내는 데 사용합니다.
+     */
+    public UploadSessionResponse getSession(Long userId, String sessionId) {
+        UploadSession session = getOwnedSession(userId, sessionId);
+        return toResponse(session, uploadChunkRepository.findBySessionIdOrderByStartOffset(sessionId));
+    }
+
+    /**
+     * 조각 하나를 지정한 오프셋에 기록합니다.
+     * 조각 전송 중에는 DB 커넥션을 잡고 있지 않도록 트랜잭션 없이 동작합니다.
+     * @param offset 조각의 시작 위치 (바이트)
+     * @param contentLength 조각 크기 (요청의 Content-Length)
+     */
+    public UploadSessionResponse writeChunk(Long userId, String sessionId, long offset,
+                                            long contentLength, InputStream inputStream) throws IOException {
+        if (contentLength < 0) {
+            throw new RuntimeException("Content-Length 헤더가 필요합니다.");
+        }
+
+        // 진행 중으로 먼저 등록한 뒤 세션 상태를 확인: 커밋이 표시하기 전에 확인을 통과한 쓰기는 커밋이 끝날 때까지 기다림
+        beginWrite(sessionId);
+        try {
+            UploadSession session = getOwnedSession(userId, sessionId);
+            if (session.isCommitting()) {
+                throw new RuntimeException("이미 커밋 중인 업로드 세션입니다.");
+            }
+            if (offset < 0 || offset + contentLength > session.getTotalSize()) {
+                throw new RuntimeException("조각 범위가 파일 크기를 벗어납니다.");
+            }
+
+            long written = 0;
+            // 조각마다 별도 채널을 열어 위치 지정 쓰기를 하므로 병렬 요청끼리 서로 간섭하지 않음
+            try (ReadableByteChannel source = Channels.newChannel(inputStream);
+                 FileChannel target = FileChannel.open(Paths.get(session.getTempPath()), StandardOpenOption.WRITE)) {
+                while (written < contentLength) {
+                    long transferred = target.transferFrom(source, offset + written, contentLength - written);
+                    if (transferred <= 0) break;
+                    written += transferred;
+                }
+            }
+
+            meterRegistry.summary("joondrive.files.transfer.bytes", "endpoint", "upload.chunk").record(written);
+
+            // 끝까지 받은 부분만 수신 완료로 기록 (나머지는 클라이언트가 다시 보냄)
+            return recordChunk(sessionId, offset, written);
+        } finally {
+            endWrite(sessionId);
+        }
+    }
+
+    /**
+     * 모든 구간이 수신되었는지 확인한 뒤 임시 파일을 최종 위치로 옮기고 파일을 등록합니다.
+     * 세션을 커밋 중으로 표시하는 것이 첫 단계이며, 해시 계산과 압축은 트랜잭션 밖에서 하고 세션 삭제와 파일 등록만 한 트랜잭션으로 묶습니다.
+     * 등록에 실패하면 표시를 되돌려 다시 커밋할 수 있게 합니다.
+     */
+    public FileEntity commit(Long userId, String sessionId) throws IOException {
+        getOwnedSession(userId, sessionId);
+        // 동시에 온 커밋은 여기서 한 쪽만 통과 (해시/압축을 두 번 하지 않음)
+        if (uploadSessionRepository.markCommitting(sessionId) == 0) {
+            throw new RuntimeException("이미 커밋 중이거나 취소된 업로드 세션입니다.");
+        }
+
+        boolean registered = false;
+        try {
+            // 표시 전에 시작된 조각 쓰기가 끝난 뒤에 해시 계산 (늦게 끝난 쓰기가 blob 내용을 바꾸지 않게)
+            awaitWrites(sessionId);
+            UploadSession session = getOwnedSession(userId, sessionId);
+            if (receivedBytes(session) != session.getTotalSize()) {
+                throw new RuntimeException("아직 수신되지 않은 구간이 있습니다.");
+            }
+
+            // 임시 파일을 blob 저장소로 rename (같은 파일시스템이므로 데이터 복사 없음)
+            // 세션 삭제와 사용량 증가가 같은 트랜잭션이므로 잡아 둔 용량이 빈틈없이 사용량으로 넘어감
+            FileEntity file = fileService.registerUploadedFile(userId, session.getParentId(),
+                    session.getFileName(), Paths.get(session.getTempPath()), session.getTotalSize(), () -> {
+                        if (uploadSessionRepository.deleteSessionById(sessionId) == 0) {
+                            throw new RuntimeException("이미 완료되었거나 취소된 업로드 세션입니다.");
+                        }
+                        uploadChunkRepository.deleteBySessionId(sessionId);
+                    });
+            registered = true;
+            return file;
+        } finally {
+            if (!registered) uploadSessionRepository.clearCommitting(sessionId);
+        }
+    }
+
+    /**
+     * 업로드를 취소하고 임시 파일을 삭제합니다.
+     */
+    @Transactional
+    public void abort(Long userId, String sessionId) throws IOException {
+        UploadSession session = getOwnedSession(userId, sessionId);
+        // 커밋이 가져간 세션은 임시 파일을 지우지 않음
+        if (uploadSessionRepository.deleteReceivingSessionById(sessionId) == 0) {
+            throw new RuntimeException("커밋 중이거나 이미 끝난 업로드 세션입니다.");
+        }
+        uploadChunkRepository.deleteBySessionId(sessionId);
+        Files.deleteIfExists(Paths.get(session.getTempPath()));
+    }
+
+    /**
+     * 보관 시간이 지난 미완료 세션을 정리합니다.
+     */
+    @Scheduled(fixedDelayString = "PT1H")
+    @Transactional
+    public void cleanupExpiredSessions() {
+        LocalDateTime threshold = LocalDateTime.now().minusHours(SESSION_EXPIRE_HOURS);
+        for (UploadSession session : uploadSessionRepository.findByCreatedAtBefore(threshold)) {
+            try {
+                removeSession(session);
+            } catch (IOException e) {
+                // 임시 파일 삭제 실패는 다음 주기에 다시 시도
+            }
+        }
+    }
+
+    private void removeSession(UploadSession session) throws IOException {
+        Files.deleteIfExists(Paths.get(session.getTempPath()));
+        uploadChunkRepository.deleteBySessionId(session.getId());
+        uploadSessionRepository.delete(session);
+    }
+
+    // 받은 구간을 기록하고 수신 현황을 돌려줌. 세션 행을 잠가 같은 세션의 조각 기록끼리 한 줄로 세움
+    // 조각 행은 겹치거나 맞닿은 구간을 합쳐 두므로, 조각 수가 아니라 빠진 구간 수만큼만 읽음
+    private UploadSessionResponse recordChunk(String sessionId, long offset, long written) {
+        return transactionTemplate.execute(status -> {
+            UploadSession session = uploadSessionRepository.findForUpdate(sessionId)
+                    .orElseThrow(() -> new RuntimeException("업로드 세션을 찾을 수 없습니다."));
+            List<UploadChunk> chunks = uploadChunkRepository.findBySessionIdOrderByStartOffset(sessionId);
+
+            if (written > 0) {
+                long start = offset;
+                long end = offset + written;
+                List<UploadChunk> kept = new ArrayList<>();
+                List<Long> absorbed = new ArrayList<>();
+                for (UploadChunk chunk : chunks) {
+                    long chunkStart = chunk.getStartOffset();
+                    long chunkEnd = chunkStart + chunk.getChunkLength();
+                    if (chunkStart <= end && chunkEnd >= start) {
+                        start = Math.min(start, chunkStart);
+                        end = Math.max(end, chunkEnd);
+                        absorbed.add(chunk.getId());
+                    } else {
+                        kept.add(chunk);
+                    }
+                }
+                if (!absorbed.isEmpty()) {
+                    uploadChunkRepository.deleteAllByIdInBatch(absorbed);
+                }
+                UploadChunk merged = new UploadChunk();
+                merged.setSessionId(sessionId);
+                merged.setStartOffset(start);
+                merged.setChunkLength(end - start);
+                uploadChunkRepository.save(merged);
+                kept.add(merged);
+                kept.sort(Comparator.comparing(UploadChunk::getStartOffset));
+                chunks = kept;
+            }
+
+            UploadSessionResponse response = toResponse(session, chunks);
+            session.setReceivedBytes(response.getReceivedBytes());
+            return response;
+        });
+    }
+
+    // 받은 바이트 수 도입 전에 만든 세션은 조각 목록에서 계산
+    private long receivedBytes(UploadSession session) {
+        if (session.getReceivedBytes() != null) {
+            return session.getReceivedBytes();
+        }
+        return toResponse(session, uploadChunkRepository.findBySessionIdOrderByStartOffset(session.getId())).getReceivedBytes();
+    }
+
+    private void beginWrite(String sessionId) {
+        activeWrites.compute(sessionId, (id, writes) -> {
+            if (writes == null) writes = new ActiveWrites();
+            synchronized (writes) {
+                writes.count++;
+            }
+            return writes;
+        });
+    }
+
+    private void endWrite(String sessionId) {
+        activeWrites.computeIfPresent(sessionId, (id, writes) -> {
+            synchronized (writes) {
+                if (--writes.count > 0) return writes;
+                writes.notifyAll();
+                return null;
+            }
+        });
+    }
+
+    private void awaitWrites(String sessionId) throws IOException {
+        ActiveWrites writes = activeWrites.get(sessionId);
+        if (writes == null) return;
+        synchronized (writes) {
+            try {
+                while (writes.count > 0) {
+                    writes.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("업로드 커밋이 중단되었습니다.");
+            }
+        }
+    }
+
+    private UploadSession getOwnedSession(Long userId, String sessionId) {
+        UploadSession session = uploadSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new RuntimeException("업로드 세션을 찾을 수 없습니다."));
+        if (!session.getUserId().equals(userId)) {
+            throw new RuntimeException("업로드 세션에 대한 권한이 없습니다.");
+        }
+        return session;
+    }
+
+    // 임시 파일은 사용자 폴더 밖({base}/.uploads)에 두어 사용량 보정 대상에서 제외
+    private Path getUploadTempPath() throws IOException {
+        Path path = Paths.get(BASE_STORAGE_PATH).resolve(".uploads");
+        if (!Files.exists(path)) Files.createDirectories(path);
+        return path;
+    }
+
+    private UploadSessionResponse toResponse(UploadSession session, List<UploadChunk> chunks) {
+        List<ReceivedRange> ranges = mergeRanges(chunks);
+        long receivedBytes = ranges.stream().mapToLong(range -> range.end() - range.start()).sum();
+        return new UploadSessionResponse(session.getId(), session.getTotalSize(), receivedBytes, ranges);
+    }
+
+    // 시작 위치 순으로 정렬된 조각들을 겹치거나 맞닿은 구간끼리 합침 (재전송으로 인한 중복 허용)
+    private List<ReceivedRange> mergeRanges(List<UploadChunk> chunks) {
+        List<ReceivedRange> ranges = new ArrayList<>();
+        long start = -1;
+        long end = -1;
+        for (UploadChunk chunk : chunks) {
+            long chunkStart = chunk.getStartOffset();
+            long chunkEnd = chunkStart + chunk.getChunkLength();
+            if (start < 0) {
+                start = chunkStart;
+                end = chunkEnd;
+            } else if (chunkStart <= end) {
+                end = Math.max(end, chunkEnd);
+            } else {
+                ranges.add(new ReceivedRange(start, end));
+                start = chunkStart;
+                end = chunkEnd;
+            }
+        }
+        if (start >= 0) ranges.add(new ReceivedRange(start, end));
+        return ranges;
+    }
+
+    private static final class ActiveWrites {
+        private int count;
+    }
+}
@@ -0,0 +1,437 @@
+package kwonjh0406.joondrive.file.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import kwonjh0406.joondrive.file.entity.FileEntity;
+import kwonjh0406.joondrive.file.repository.FileRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 여러 파일/폴더를 하나의 ZIP 스트림으로 내보냅니다.
+ * 항목별 압축(또는 CRC 계산)을 압축 스레드 풀에서 앞질러 병렬로 처리하고, 기록은 요청 순서대로 한 스레드에서 합니다.
+ * 큰 파일은 1MB 조각으로 나눠 병렬로 압축한 뒤 이어 붙입니다.
+ * 이미 압축된 형식(사진, 동영상, 압축 파일 등)이나 앞부분 표본이 잘 줄지 않는 파일은 압축하지 않고 넣어 CPU 를 쓰지 않습니다.
+ * gzip 으로 저장된 파일은 본문(raw deflate)을 다시 압축하지 않고 그대로 DEFLATED 항목으로 넣습니다.
+ * 미리 읽어 둔 항목/조각이 차지하는 메모리는 모든 내보내기가 함께 쓰는 예산(storage.zip.max-buffered-bytes)으로 제한합니다.
+ * 파일은 준비 단계에서 한 번 열어 기록이 끝날 때까지 같은 채널로 읽고, 열 때 경로가 없으면(저장 구조 이전) 파일 행에서 새 경로를 읽습니다.
+ * 그래서 내보내기가 이전 경로의 삭제 유예 시간보다 오래 걸려도 됩니다.
+ */
+@Service
+public class ZipExportService {
+
+    // 이 크기 이하의 파일은 작업 스레드에서 통째로 읽어 압축해 두고, 큰 파일은 조각 단위로 압축
+    private static final int IN_MEMORY_LIMIT = 4 * 1024 * 1024;
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    // 조각 압축 사전 크기 (deflate 가 거슬러 참조할 수 있는 최대 거리)
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    // 한 내보내기가 동시에 준비해 둘 항목/조각 수
+    private static final int LOOKAHEAD = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final int GZIP_HEADER_SIZE = 10;
+    private static final int GZIP_TRAILER_SIZE = 8;
+
+    private final ExecutorService zipExecutor;
+    private final FileRepository fileRepository;
+    private final MeterRegistry meterRegistry;
+    // 미리 읽어 둔 데이터의 전체 예산 (KB 단위 허가)
+    private final Semaphore bufferBudget;
+    private final int bufferBudgetPermits;
+
+    public ZipExportService(ExecutorService zipExecutor, FileRepository fileRepository, MeterRegistry meterRegistry,
+                            @Value("${storage.zip.max-buffered-bytes:67108864}") long maxBufferedBytes) {
+        this.zipExecutor = zipExecutor;
+        this.fileRepository = fileRepository;
+        this.meterRegistry = meterRegistry;
+        this.bufferBudgetPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxBufferedBytes / 1024));
+        this.bufferBudget = new Semaphore(bufferBudgetPermits);
+    }
+
+    /**
+     * @param roots ZIP 최상위에 넣을 항목 (요청 순서)
+     * @param tree roots 의 하위 전체를 미리 불러온 트리
+     * @param out 응답 스트림 (닫지 않음)
+     */
+    public void writeZip(List<FileEntity> roots, FileTree tree, OutputStream out) throws IOException {
+        List<PlannedEntry> plan = new ArrayList<>();
+        // 같은 경로가 여러 번 나오면 번호를 붙여 구분
+        UniqueNameAllocator entryNames = new UniqueNameAllocator();
+        for (FileEntity root : roots) {
+            addToZip(plan, root, "", tree, entryNames);
+        }
+
+        ZipStreamWriter zip = new ZipStreamWriter(out);
+        Deque<Pending<PreparedEntry>> pending = new ArrayDeque<>();
+        int next = 0;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            while (next < plan.size() || !pending.isEmpty()) {
+                while (pending.size() < LOOKAHEAD && next < plan.size()) {
+                    PlannedEntry entry = plan.get(next);
+                    int permits = entry.path() == null || entry.codec() != null ? 0 : permitsFor(inMemoryBytes(entry.size()));
+                    // 준비 중인 항목이 있으면 기다리지 않고 그 항목부터 기록 (기록해야 예산이 풀림)
+                    if (!acquire(permits, pending.isEmpty())) break;
+                    next++;
+                    pending.add(new Pending<>(entry.path() == null
+                            ? CompletableFuture.completedFuture(new InlineEntry(entry.name(), ZipStreamWriter.STORED, 0, 0, new byte[0]))
+                            : prepareAsync(entry, permits), permits));
+                }
+                Pending<PreparedEntry> head = pending.poll();
+                PreparedEntry prepared = null;
+                try {
+                    prepared = await(head.future());
+                    write(zip, prepared);
+                } finally {
+                    closeQuietly(prepared);
+                    bufferBudget.release(head.permits());
+                }
+            }
+            zip.finish();
+        } finally {
+            // 클라이언트가 연결을 끊는 등 중간에 실패하면 남은 준비 작업 취소
+            pending.forEach(this::cancel);
+
+            // 처리량(초당 항목 수/바이트)은 카운터 증가율과 소요 시간으로 계산
+            sample.stop(meterRegistry.timer("joondrive.zip.duration"));
+            meterRegistry.counter("joondrive.zip.entries").increment(zip.getEntryCount());
+            meterRegistry.counter("joondrive.zip.bytes").increment(zip.getWritten());
+            meterRegistry.summary("joondrive.files.transfer.bytes", "endpoint", "zip").record(zip.getWritten());
+        }
+    }
+
+    // ZIP 항목 목록을 요청 순서대로 구성 (폴더는 재귀적으로 펼침)
+    private void addToZip(List<PlannedEntry> plan, FileEntity file, String basePath, FileTree tree, UniqueNameAllocator entryNames) {
+        String entryName = basePath + file.getName();
+
+        if ("folder".equals(file.getFileType())) {
+            if (!entryName.endsWith("/")) {
+                entryName += "/";
+            }
+            entryName = entryNames.allocate(entryName);
+
+            // 빈 폴더도 ZIP에 포함 (일부 ZIP 뷰어에서 필요)
+            plan.add(new PlannedEntry(entryName, file.getId(), null, null, 0));
+
+            for (FileEntity child : tree.getChildren(file.getId())) {
+                addToZip(plan, child, entryName, tree, entryNames);
+            }
+        } else {
+            entryName = entryNames.allocate(entryName);
+
+            // 경로가 없는 파일은 건너뛰기 (존재하지 않는 파일은 준비 단계에서 건너뜀)
+            if (file.getRealPath() == null || file.getRealPath().isEmpty()) {
+                return;
+            }
+            plan.add(new PlannedEntry(entryName, file.getId(), Paths.get(file.getRealPath()), file.getCodec(),
+                    file.getSize() != null ? file.getSize() : 0));
+        }
+    }
+
+    // 준비가 끝났을 때 이미 취소되었으면(클라이언트 연결 끊김 등) 열어 둔 파일을 닫음
+    private CompletableFuture<PreparedEntry> prepareAsync(PlannedEntry entry, int permits) {
+        CompletableFuture<PreparedEntry> future = new CompletableFuture<>();
+        zipExecutor.execute(() -> {
+            try {
+                PreparedEntry prepared = prepare(entry, permits);
+                if (!future.complete(prepared)) closeQuietly(prepared);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    // 압축 스레드에서 실행: 압축 방식을 정하고 CRC/압축 결과를 미리 계산
+    // permits: 이 항목에 잡아 둔 예산. 그 안에 들어오는 작은 파일만 메모리로 읽음
+    // 메모리로 읽은 항목 외에는 연 채널을 항목에 담아 넘기고, 기록이 끝나면 닫음
+    private PreparedEntry prepare(PlannedEntry entry, int permits) {
+        OpenedFile file = null;
+        boolean handedOff = false;
+        try {
+            file = open(entry);
+            if (file == null) {
+                return null; // 존재하지 않는 파일은 건너뛰기
+            }
+            FileChannel channel = file.channel();
+            if (file.codec() != null) {
+                PreparedEntry prepared = prepareEncoded(entry, channel, file.codec());
+                handedOff = true;
+                return prepared;
+            }
+            long size = channel.size();
+
+            if (size <= IN_MEMORY_LIMIT && permitsFor(inMemoryBytes(size)) <= permits) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) size);
+                readFully(channel, buffer, 0);
+                byte[] data = buffer.array();
+                CRC32 crc = new CRC32();
+                crc.update(data);
+                if (Compressibility.hasIncompressibleExtension(entry.name())) {
+                    return new InlineEntry(entry.name(), ZipStreamWriter.STORED, crc.getValue(), data.length, data);
+                }
+                byte[] compressed = ZipStreamWriter.deflate(data, data.length);
+                // 압축 효과가 작으면 읽어 둔 원본을 그대로 넣음
+                if (!Compressibility.isWorthwhile(compressed.length, data.length)) {
+                    return new InlineEntry(entry.name(), ZipStreamWriter.STORED, crc.getValue(), data.length, data);
+                }
+                return new InlineEntry(entry.name(), ZipStreamWriter.DEFLATED, crc.getValue(), data.length, compressed);
+            }
+
+            // 큰 파일: 줄지 않는 내용이면 압축 없는 deflate 블록으로 감싸 기록 시점에 한 번만 읽고, 아니면 조각별 병렬 압축
+            handedOff = true;
+            if (Compressibility.hasIncompressibleExtension(entry.name()) || !sampleCompressesWell(channel)) {
+                return new StreamedEntry(entry.name(), channel, null, Deflater.NO_COMPRESSION);
+            }
+            return new ChunkedEntry(entry.name(), channel, size);
+        } catch (IOException e) {
+            handedOff = false;
+            throw new UncheckedIOException(e);
+        } finally {
+            if (file != null && !handedOff) closeQuietly(file.channel());
+        }
+    }
+
+    // 계획한 경로를 열고, 없으면 파일 행에서 현재 경로를 다시 읽어 엶. 파일이 삭제되었거나 둘 다 없으면 null
+    // 저장 구조 이전은 새 경로를 커밋한 뒤에만 이전 경로를 지우므로, 이전 경로가 없으면 행의 경로는 이미 새 경로임
+    private OpenedFile open(PlannedEntry entry) throws IOException {
+        try {
+            return new OpenedFile(FileChannel.open(entry.path(), StandardOpenOption.READ), entry.codec());
+        } catch (NoSuchFileException e) {
+            FileEntity file = fileRepository.findById(entry.fileId()).orElse(null);
+            if (file == null || file.getRealPath() == null || file.getRealPath().equals(entry.path().toString())) {
+                return null;
+            }
+            try {
+                return new OpenedFile(FileChannel.open(Paths.get(file.getRealPath()), StandardOpenOption.READ), file.getCodec());
+            } catch (NoSuchFileException missing) {
+                return null;
+            }
+        }
+    }
+
+    private static boolean sampleCompressesWell(FileChannel channel) throws IOException {
+        ByteBuffer sample = ByteBuffer.allocate((int) Math.min(Compressibility.SAMPLE_SIZE, channel.size()));
+        readFully(channel, sample, 0);
+        return Compressibility.sampleCompressesWell(sample.array(), sample.capacity());
+    }
+
+    // 압축 저장된 파일: gzip 헤더(10바이트)와 트레일러(CRC, 원본 크기 8바이트) 사이의 raw deflate 를 그대로 씀
+    // 예상과 다른 형식(헤더 확장 필드 등)이면 기록 스레드에서 풀면서 다시 압축 (드문 경우라 조각 병렬 압축은 하지 않음)
+    private PreparedEntry prepareEncoded(PlannedEntry entry, FileChannel channel, String codec) throws IOException {
+        if (BlobService.CODEC_GZIP.equals(codec)) {
+            long fileSize = channel.size();
+            if (fileSize >= GZIP_HEADER_SIZE + GZIP_TRAILER_SIZE) {
+                ByteBuffer header = ByteBuffer.allocate(GZIP_HEADER_SIZE);
+                ByteBuffer trailer = ByteBuffer.allocate(GZIP_TRAILER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                readFully(channel, header, 0);
+                readFully(channel, trailer, fileSize - GZIP_TRAILER_SIZE);
+
+                // 1f 8b (gzip), 08 (deflate), 플래그 없음 / ISIZE 는 원본 크기의 하위 32비트
+                boolean plainHeader = (header.get(0) & 0xFF) == 0x1f && (header.get(1) & 0xFF) == 0x8b
+                        && header.get(2) == 8 && header.get(3) == 0;
+                boolean sizeMatches = (trailer.getInt(4) & 0xFFFFFFFFL) == (entry.size() & 0xFFFFFFFFL);
+                if (plainHeader && sizeMatches) {
+                    long crc = trailer.getInt(0) & 0xFFFFFFFFL;
+                    return new PassthroughEntry(entry.name(), channel, crc, entry.size(),
+                            GZIP_HEADER_SIZE, fileSize - GZIP_HEADER_SIZE - GZIP_TRAILER_SIZE);
+                }
+            }
+        }
+        return new StreamedEntry(entry.name(), channel, codec, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    private void write(ZipStreamWriter zip, PreparedEntry entry) throws IOException {
+        switch (entry) {
+            case null -> {
+            }
+            case InlineEntry inline -> zip.putPrepared(inline.name(), inline.method(), inline.crc(), inline.size(), inline.data(), inline.data().length);
+            case PassthroughEntry passthrough -> {
+                try (InputStream in = Channels.newInputStream(passthrough.channel().position(passthrough.offset()))) {
+                    zip.putRaw(passthrough.name(), ZipStreamWriter.DEFLATED, passthrough.crc(), passthrough.compressedSize(), passthrough.size(), in);
+                }
+            }
+            case StreamedEntry streamed -> {
+                try (InputStream in = BlobService.decode(Channels.newInputStream(streamed.channel().position(0)), streamed.codec())) {
+                    zip.putDeflated(streamed.name(), in, streamed.level());
+                }
+            }
+            case ChunkedEntry chunked -> writeChunked(zip, chunked);
+        }
+    }
+
+    // 큰 파일을 조각으로 나눠 압축 스레드 풀에서 앞질러 압축하고, 끝난 순서가 아니라 조각 순서대로 이어 씀
+    private void writeChunked(ZipStreamWriter zip, ChunkedEntry entry) throws IOException {
+        int chunkCount = (int) ((entry.size() + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        int chunkPermits = permitsFor(DICTIONARY_SIZE + 2L * CHUNK_SIZE);
+        Deque<Pending<ZipStreamWriter.DeflatedChunk>> chunks = new ArrayDeque<>();
+        FileChannel channel = entry.channel();
+        try {
+            zip.putDeflatedChunks(entry.name(), new ZipStreamWriter.ChunkSource() {
+                private int scheduled;
+
+                @Override
+                public ZipStreamWriter.DeflatedChunk next() throws IOException {
+                    while (chunks.size() < LOOKAHEAD && scheduled < chunkCount) {
+                        int permits = chunkPermits;
+                        if (!bufferBudget.tryAcquire(permits)) {
+                            if (!chunks.isEmpty()) break;
+                            // 예산이 다 차 있어도 한 조각씩은 진행 (앞서 준비해 둔 항목이 이 기록을 기다리며 예산을 잡고 있을 수 있음)
+                            permits = 0;
+                        }
+                        long start = (long) scheduled * CHUNK_SIZE;
+                        boolean last = ++scheduled == chunkCount;
+                        chunks.add(new Pending<>(CompletableFuture.supplyAsync(
+                                () -> deflateChunk(channel, start, entry.size(), last), zipExecutor), permits));
+                    }
+                    Pending<ZipStreamWriter.DeflatedChunk> head = chunks.poll();
+                    if (head == null) return null;
+                    try {
+                        return await(head.future());
+                    } finally {
+                        bufferBudget.release(head.permits());
+                    }
+                }
+            });
+        } finally {
+            chunks.forEach(this::cancel);
+        }
+    }
+
+    // 압축 스레드에서 실행: 앞 조각의 끝 32KB 를 사전으로 함께 읽어 한 조각을 압축
+    private static ZipStreamWriter.DeflatedChunk deflateChunk(FileChannel channel, long start, long fileSize, boolean last) {
+        int dictionaryLength = (int) Math.min(DICTIONARY_SIZE, start);
+        int length = (int) Math.min(CHUNK_SIZE, fileSize - start);
+        ByteBuffer buffer = ByteBuffer.allocate(dictionaryLength + length);
+        try {
+            readFully(channel, buffer, start - dictionaryLength);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), dictionaryLength, length);
+        byte[] compressed = ZipStreamWriter.deflateChunk(buffer.array(), dictionaryLength, length, last);
+        return new ZipStreamWriter.DeflatedChunk(compressed, crc.getValue(), length);
+    }
+
+    // 메모리로 읽어 압축해 두는 파일이 차지하는 크기 (원본 + 압축 결과)
+    private static long inMemoryBytes(long size) {
+        return size <= IN_MEMORY_LIMIT ? 2 * size : 0;
+    }
+
+    // 예산 전체보다 큰 요청은 예산 전체로 (혼자서는 항상 진행할 수 있게)
+    private int permitsFor(long bytes) {
+        return (int) Math.min(bufferBudgetPermits, (bytes + 1023) / 1024);
+    }
+
+    // wait 가 false 면 예산이 없을 때 바로 false
+    private boolean acquire(int permits, boolean wait) throws IOException {
+        if (permits == 0 || bufferBudget.tryAcquire(permits)) return true;
+        if (!wait) return false;
+        try {
+            bufferBudget.acquire(permits);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("ZIP 내보내기가 중단되었습니다.");
+        }
+    }
+
+    // 이미 실행 중인 작업은 끝까지 돌지만 결과는 버림. 이미 준비가 끝난 항목은 열어 둔 파일을 닫음
+    private void cancel(Pending<?> pending) {
+        CompletableFuture<?> future = pending.future();
+        if (!future.cancel(false) && !future.isCompletedExceptionally() && future.getNow(null) instanceof PreparedEntry prepared) {
+            closeQuietly(prepared);
+        }
+        bufferBudget.release(pending.permits());
+    }
+
+    private static void closeQuietly(PreparedEntry entry) {
+        if (entry != null) closeQuietly(entry.channel());
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+            throw e;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("파일이 예상보다 짧습니다.");
+            }
+        }
+    }
+
+    // path 가 null 이면 폴더, codec 은 path 파일의 저장 형식. fileId 는 path 가 옮겨졌을 때 다시 찾을 파일 행
+    private record PlannedEntry(String name, Long fileId, Path path, String codec, long size) {
+    }
+
+    // 준비 단계에서 연 파일과 그 저장 형식 (경로를 다시 찾았으면 새 행의 형식)
+    private record OpenedFile(FileChannel channel, String codec) {
+    }
+
+    // 준비 중인 항목/조각과 그 몫으로 잡아 둔 예산
+    private record Pending<T>(CompletableFuture<T> future, int permits) {
+    }
+
+    private sealed interface PreparedEntry permits InlineEntry, PassthroughEntry, StreamedEntry, ChunkedEntry {
+        // 기록할 때 읽을 열린 파일 (메모리에 읽어 둔 항목은 null)
+        FileChannel channel();
+    }
+
+    // 메모리에 읽어 둔(압축해 둔) 데이터를 그대로 기록. 폴더는 빈 데이터
+    private record InlineEntry(String name, int method, long crc, long size, byte[] data) implements PreparedEntry {
+        @Override
+        public FileChannel channel() {
+            return null;
+        }
+    }
+
+    // 파일의 offset 부터 compressedSize 만큼이 이미 압축된 데이터 (다시 압축하지 않음)
+    private record PassthroughEntry(String name, FileChannel channel, long crc, long size, long offset, long compressedSize) implements PreparedEntry {
+    }
+
+    // 기록 시점에 파일을 한 번 읽으며 level 로 압축 (codec 은 저장 형식)
+    private record StreamedEntry(String name, FileChannel channel, String codec, int level) implements PreparedEntry {
+    }
+
+    // 기록 시점에 조각별로 병렬 압축
+    private record ChunkedEntry(String name, FileChannel channel, long size) implements PreparedEntry {
+    }
+}
@@ -0,0 +1,406 @@
+package kwonjh0406.joondrive.file.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 미리 준비된(압축 완료 또는 CRC 계산 완료) 항목을 그대로 이어 붙여 ZIP 스트림을 만드는 기록기.
+ * java.util.zip.ZipOutputStream 은 항목 압축을 기록 스레드에서만 할 수 있어서,
+ * 압축을 여러 스레드에서 미리 해 둔 뒤 순서대로 기록하기 위해 직접 헤더를 씁니다.
+ * 4GB 를 넘는 항목/오프셋과 65535 개를 넘는 항목은 ZIP64 로 기록합니다.
+ */
+class ZipStreamWriter {
+
+    static final int STORED = 0;
+    static final int DEFLATED = 8;
+
+    private static final int LOCAL_HEADER_SIG = 0x04034b50;
+    private static final int DATA_DESCRIPTOR_SIG = 0x08074b50;
+    private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    private static final int ZIP64_END_SIG = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+    private static final int END_SIG = 0x06054b50;
+
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+
+    private static final int FLAG_DATA_DESCRIPTOR = 0x08;
+    private static final int FLAG_UTF8 = 0x800;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final int dosTime;
+    private final List<CentralRecord> records = new ArrayList<>();
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private long written;
+
+    ZipStreamWriter(OutputStream out) {
+        this.out = out;
+        this.dosTime = toDosTime(LocalDateTime.now());
+    }
+
+    // 지금까지 기록한 바이트 수
+    long getWritten() {
+        return written;
+    }
+
+    int getEntryCount() {
+        return records.size();
+    }
+
+    /**
+     * 이미 압축된(또는 STORED 원본) 데이터를 기록합니다.
+     */
+    void putPrepared(String name, int method, long crc, long size, byte[] data, int length) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        long offset = written;
+        writeLocalHeader(nameBytes, 0, method, crc, length, size);
+        write(data, 0, length);
+        records.add(new CentralRecord(nameBytes, 0, method, crc, length, size, offset));
+    }
+
+    /**
+     * 이미 ZIP 에 넣을 형태(STORED 원본 또는 raw deflate)로 된 데이터를 스트림에서 그대로 복사해 기록합니다.
+     * gzip 으로 저장된 blob 의 본문처럼 다시 압축할 필요가 없는 데이터에 씁니다.
+     * @param compressedSize in 에서 복사할 바이트 수
+     * @param size 원본 크기
+     */
+    void putRaw(String name, int method, long crc, long compressedSize, long size, InputStream in) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        long offset = written;
+        writeLocalHeader(nameBytes, 0, method, crc, compressedSize, size);
+
+        long remaining = compressedSize;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw new EOFException("ZIP 항목 크기가 변경되었습니다: " + name);
+            }
+            write(buffer, 0, read);
+            remaining -= read;
+        }
+        records.add(new CentralRecord(nameBytes, 0, method, crc, compressedSize, size, offset));
+    }
+
+    /**
+     * 크기가 커서 미리 압축해 두지 않은 항목을 기록 스레드에서 압축하며 기록합니다.
+     * 압축 후 크기를 미리 알 수 없으므로 data descriptor 로 CRC 와 크기를 뒤에 씁니다.
+     * @param level Deflater 압축 수준. NO_COMPRESSION 이면 압축하지 않는 deflate 블록으로 감싸기만 하므로,
+     *              CRC 를 미리 계산하지 않고(파일을 한 번만 읽고) 줄지 않는 내용을 기록할 수 있음
+     */
+    void putDeflated(String name, InputStream in, int level) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        long offset = written;
+        writeLocalHeader(nameBytes, FLAG_DATA_DESCRIPTOR, DEFLATED, 0, 0, 0);
+
+        CRC32 crc = new CRC32();
+        Deflater deflater = new Deflater(level, true);
+        byte[] output = new byte[BUFFER_SIZE];
+        long size;
+        long compressedSize;
+        try {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, read);
+                deflater.setInput(buffer, 0, read);
+                while (!deflater.needsInput()) {
+                    write(output, 0, deflater.deflate(output));
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                write(output, 0, deflater.deflate(output));
+            }
+            size = deflater.getBytesRead();
+            compressedSize = deflater.getBytesWritten();
+        } finally {
+            deflater.end();
+        }
+
+        writeDataDescriptor(crc.getValue(), compressedSize, size);
+        records.add(new CentralRecord(nameBytes, FLAG_DATA_DESCRIPTOR, DEFLATED, crc.getValue(), compressedSize, size, offset));
+    }
+
+    /**
+     * 큰 파일을 여러 스레드에서 조각별로 압축한 결과를 순서대로 이어 하나의 DEFLATED 항목으로 기록합니다.
+     * 조각은 deflateChunk 로 만든 것이어야 하며(마지막 조각만 스트림을 끝냄), CRC 는 조각별 CRC 를 이어 붙여 계산합니다.
+     */
+    void putDeflatedChunks(String name, ChunkSource chunks) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        long offset = written;
+        writeLocalHeader(nameBytes, FLAG_DATA_DESCRIPTOR, DEFLATED, 0, 0, 0);
+
+        long crc = 0;
+        long size = 0;
+        long compressedSize = 0;
+        DeflatedChunk chunk;
+        while ((chunk = chunks.next()) != null) {
+            write(chunk.data(), 0, chunk.data().length);
+            crc = crc32Combine(crc, chunk.crc(), chunk.size());
+            size += chunk.size();
+            compressedSize += chunk.data().length;
+        }
+
+        writeDataDescriptor(crc, compressedSize, size);
+        records.add(new CentralRecord(nameBytes, FLAG_DATA_DESCRIPTOR, DEFLATED, crc, compressedSize, size, offset));
+    }
+
+    // java.util.zip 과 같은 규칙: 크기가 32비트를 넘을 때만 8바이트 크기를 기록
+    private void writeDataDescriptor(long crc, long compressedSize, long size) throws IOException {
+        boolean zip64 = size >= ZIP64_MAGIC || compressedSize >= ZIP64_MAGIC;
+        ByteBuffer descriptor = header(zip64 ? 24 : 16);
+        descriptor.putInt(DATA_DESCRIPTOR_SIG).putInt((int) crc);
+        if (zip64) {
+            descriptor.putLong(compressedSize).putLong(size);
+        } else {
+            descriptor.putInt((int) compressedSize).putInt((int) size);
+        }
+        write(descriptor);
+    }
+
+    /**
+     * 중앙 디렉터리와 종료 레코드를 기록합니다. 출력 스트림은 닫지 않습니다.
+     */
+    void finish() throws IOException {
+        long centralOffset = written;
+        for (CentralRecord record : records) {
+            writeCentralHeader(record);
+        }
+        long centralSize = written - centralOffset;
+
+        boolean zip64 = records.size() >= ZIP64_MAGIC_COUNT || centralOffset >= ZIP64_MAGIC || centralSize >= ZIP64_MAGIC;
+        if (zip64) {
+            long zip64EndOffset = written;
+            ByteBuffer end64 = header(56);
+            end64.putInt(ZIP64_END_SIG).putLong(44)
+                    .putShort((short) 45).putShort((short) 45)
+                    .putInt(0).putInt(0)
+                    .putLong(records.size()).putLong(records.size())
+                    .putLong(centralSize).putLong(centralOffset);
+            write(end64);
+
+            ByteBuffer locator = header(20);
+            locator.putInt(ZIP64_LOCATOR_SIG).putInt(0).putLong(zip64EndOffset).putInt(1);
+            write(locator);
+        }
+
+        int count = (int) Math.min(records.size(), ZIP64_MAGIC_COUNT);
+        ByteBuffer end = header(22);
+        end.putInt(END_SIG).putShort((short) 0).putShort((short) 0)
+                .putShort((short) count).putShort((short) count)
+                .putInt((int) Math.min(centralSize, ZIP64_MAGIC))
+                .putInt((int) Math.min(centralOffset, ZIP64_MAGIC))
+                .putShort((short) 0);
+        write(end);
+        out.flush();
+    }
+
+    // 메모리에 올린 데이터를 raw deflate 로 압축 (압축 작업 스레드에서 호출)
+    static byte[] deflate(byte[] data, int length) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, length / 2));
+            byte[] chunk = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                compressed.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 큰 파일의 한 조각을 raw deflate 로 압축합니다. (압축 작업 스레드에서 호출)
+     * data 의 앞 dictionaryLength 바이트는 바로 앞 조각의 끝부분으로, 압축 사전으로만 쓰여 조각 경계에서도 압축률이 유지됩니다.
+     * 마지막이 아닌 조각은 SYNC_FLUSH 로 바이트 경계에서 끝나므로 이어 붙이면 하나의 deflate 스트림이 됩니다.
+     */
+    static byte[] deflateChunk(byte[] data, int dictionaryLength, int length, boolean last) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            if (dictionaryLength > 0) {
+                deflater.setDictionary(data, 0, dictionaryLength);
+            }
+            deflater.setInput(data, dictionaryLength, length);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, length / 2));
+            byte[] chunk = new byte[BUFFER_SIZE];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    compressed.write(chunk, 0, deflater.deflate(chunk));
+                }
+            } else {
+                int count;
+                do {
+                    count = deflater.deflate(chunk, 0, chunk.length, Deflater.SYNC_FLUSH);
+                    compressed.write(chunk, 0, count);
+                } while (count == chunk.length || !deflater.needsInput());
+            }
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * CRC(A) 와 CRC(B), B 의 길이로 CRC(A + B) 를 계산합니다. (zlib crc32_combine 과 같은 방법)
+     */
+    static long crc32Combine(long crc1, long crc2, long length2) {
+        if (length2 <= 0) return crc1;
+
+        long[] even = new long[32];
+        long[] odd = new long[32];
+        // 0 한 비트를 더하는 연산자 (CRC-32 다항식)
+        odd[0] = 0xEDB88320L;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        gf2MatrixSquare(even, odd); // 0 두 비트
+        gf2MatrixSquare(odd, even); // 0 네 비트
+
+        // length2 바이트만큼의 0 을 crc1 에 더함 (제곱을 반복해 길이의 비트마다 적용)
+        do {
+            gf2MatrixSquare(even, odd);
+            if ((length2 & 1) != 0) crc1 = gf2MatrixTimes(even, crc1);
+            length2 >>= 1;
+            if (length2 == 0) break;
+
+            gf2MatrixSquare(odd, even);
+            if ((length2 & 1) != 0) crc1 = gf2MatrixTimes(odd, crc1);
+            length2 >>= 1;
+        } while (length2 != 0);
+        return crc1 ^ crc2;
+    }
+
+    private static long gf2MatrixTimes(long[] matrix, long vector) {
+        long sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) sum ^= matrix[i];
+        }
+        return sum;
+    }
+
+    private static void gf2MatrixSquare(long[] square, long[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = gf2MatrixTimes(matrix, matrix[n]);
+        }
+    }
+
+    private void writeLocalHeader(byte[] name, int flags, int method, long crc, long compressedSize, long size) throws IOException {
+        boolean zip64 = size >= ZIP64_MAGIC || compressedSize >= ZIP64_MAGIC;
+        ByteBuffer header = header(30 + name.length + (zip64 ? 20 : 0));
+        header.putInt(LOCAL_HEADER_SIG)
+                .putShort((short) versionNeeded(flags, method, zip64))
+                .putShort((short) (flags | FLAG_UTF8))
+                .putShort((short) method)
+                .putInt(dosTime)
+                .putInt((int) crc)
+                .putInt((int) (zip64 ? ZIP64_MAGIC : compressedSize))
+                .putInt((int) (zip64 ? ZIP64_MAGIC : size))
+                .putShort((short) name.length)
+                .putShort((short) (zip64 ? 20 : 0))
+                .put(name);
+        if (zip64) {
+            header.putShort((short) ZIP64_EXTRA_ID).putShort((short) 16).putLong(size).putLong(compressedSize);
+        }
+        write(header);
+    }
+
+    private void writeCentralHeader(CentralRecord record) throws IOException {
+        // ZIP64 확장 필드에는 32비트를 넘는 값만 순서대로(원본 크기, 압축 크기, 오프셋) 넣음
+        boolean zip64Size = record.size() >= ZIP64_MAGIC;
+        boolean zip64CompressedSize = record.compressedSize() >= ZIP64_MAGIC;
+        boolean zip64Offset = record.offset() >= ZIP64_MAGIC;
+        int extraDataLength = (zip64Size ? 8 : 0) + (zip64CompressedSize ? 8 : 0) + (zip64Offset ? 8 : 0);
+        boolean zip64 = extraDataLength > 0;
+        int extraLength = zip64 ? 4 + extraDataLength : 0;
+
+        int version = versionNeeded(record.flags(), record.method(), zip64);
+        ByteBuffer header = header(46 + record.name().length + extraLength);
+        header.putInt(CENTRAL_HEADER_SIG)
+                .putShort((short) version)
+                .putShort((short) version)
+                .putShort((short) (record.flags() | FLAG_UTF8))
+                .putShort((short) record.method())
+                .putInt(dosTime)
+                .putInt((int) record.crc())
+                .putInt((int) (zip64CompressedSize ? ZIP64_MAGIC : record.compressedSize()))
+                .putInt((int) (zip64Size ? ZIP64_MAGIC : record.size()))
+                .putShort((short) record.name().length)
+                .putShort((short) extraLength)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putInt(0)
+                .putInt((int) (zip64Offset ? ZIP64_MAGIC : record.offset()))
+                .put(record.name());
+        if (zip64) {
+            header.putShort((short) ZIP64_EXTRA_ID).putShort((short) extraDataLength);
+            if (zip64Size) header.putLong(record.size());
+            if (zip64CompressedSize) header.putLong(record.compressedSize());
+            if (zip64Offset) header.putLong(record.offset());
+        }
+        write(header);
+    }
+
+    private static int versionNeeded(int flags, int method, boolean zip64) {
+        if (zip64) return 45;
+        if (method == DEFLATED || (flags & FLAG_DATA_DESCRIPTOR) != 0) return 20;
+        return 10;
+    }
+
+    private static ByteBuffer header(int length) {
+        return ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void write(ByteBuffer header) throws IOException {
+        write(header.array(), 0, header.position());
+    }
+
+    private void write(byte[] bytes, int offset, int length) throws IOException {
+        out.write(bytes, offset, length);
+        written += length;
+    }
+
+    private static int toDosTime(LocalDateTime time) {
+        if (time.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (time.getYear() - 1980) << 25
+                | time.getMonthValue() << 21
+                | time.getDayOfMonth() << 16
+                | time.getHour() << 11
+                | time.getMinute() << 5
+                | time.getSecond() >> 1;
+    }
+
+    // 따로 압축한 조각 (data: raw deflate, crc/size: 원본 조각 기준)
+    record DeflatedChunk(byte[] data, long crc, long size) {
+    }
+
+    // 조각을 순서대로 돌려줌 (끝이면 null)
+    interface ChunkSource {
+        DeflatedChunk next() throws IOException;
+    }
+
+    private record CentralRecord(byte[] name, int flags, int method, long crc,
+                                 long compressedSize, long size, long offset) {
+    }
+}
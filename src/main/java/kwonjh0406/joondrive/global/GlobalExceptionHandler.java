@@ -1,6 +1,7 @@
 package kwonjh0406.joondrive.global;
 
 import kwonjh0406.joondrive.auth.exception.EmailAlreadyExistsException;
+import kwonjh0406.joondrive.auth.exception.TooManyRequestsException;
 import kwonjh0406.joondrive.file.exception.StorageLimitExceededException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +17,11 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
     }
 
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<String> handleTooManyRequests(TooManyRequestsException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(ex.getMessage());
+    }
+
     @ExceptionHandler(StorageLimitExceededException.class)
     public ResponseEntity<String> handleStorageLimitExceeded(StorageLimitExceededException ex) {
         return ResponseEntity.status(HttpStatus.valueOf(413)).body(ex.getMessage());
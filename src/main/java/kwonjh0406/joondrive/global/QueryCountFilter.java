@@ -0,0 +1,41 @@
+package kwonjh0406.joondrive.global;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * 요청 하나에서 실행된 SQL 수를 엔드포인트(URI 패턴)별로 기록합니다. (joondrive.db.queries)
+ * 스트리밍 응답처럼 다른 스레드에서 실행되는 쿼리는 포함되지 않습니다.
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        QueryCountInspector.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int queries = QueryCountInspector.stop();
+            // 매핑된 핸들러가 없으면(404, 정적 리소스 등) 태그 수가 늘지 않도록 하나로 묶음
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            meterRegistry.summary("joondrive.db.queries",
+                            "method", request.getMethod(),
+                            "uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                    .record(queries);
+        }
+    }
+}
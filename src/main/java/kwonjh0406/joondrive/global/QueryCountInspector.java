@@ -0,0 +1,32 @@
+package kwonjh0406.joondrive.global;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate 가 실행하는 SQL 수를 현재 요청 스레드 기준으로 셉니다.
+ * hibernate.session_factory.statement_inspector 설정으로 Hibernate 가 직접 생성하므로 빈이 아닙니다.
+ * 집계 구간은 QueryCountFilter 가 요청마다 열고 닫습니다.
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    static int stop() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
@@ -2,11 +2,43 @@ package kwonjh0406.joondrive.repository;
 
 import kwonjh0406.joondrive.auth.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    @Query("select coalesce(u.usedStorage, 0) from User u where u.id = :userId")
+    Optional<Long> findUsedStorageById(@Param("userId") Long userId);
+
+    @Query("select u.id from User u")
+    List<Long> findAllIds();
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update User u set u.usedStorage = coalesce(u.usedStorage, 0) + :delta where u.id = :userId")
+    int addUsedStorage(@Param("userId") Long userId, @Param("delta") long delta);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update User u set u.usedStorage = :usedStorage where u.id = :userId")
+    int updateUsedStorage(@Param("userId") Long userId, @Param("usedStorage") long usedStorage);
+
+    // 사용량 장부 도입 전 사용자: 장부가 0 인 사용자만 파일 크기 합계로 채움 (회수 대기 중인 항목 포함)
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "update user u set u.used_storage = (select coalesce(sum(f.size), 0) from file_entity f" +
+            " where f.user_id = u.id and f.file_type = 'file') where u.used_storage = 0", nativeQuery = true)
+    int backfillUsedStorage();
+
+    // 사용자 행을 트랜잭션 끝까지 잠금 (같은 사용자의 이름 할당을 한 줄로 세움)
+    @Query(value = "select id from user where id = :userId for update", nativeQuery = true)
+    Long lockById(@Param("userId") Long userId);
 }
 
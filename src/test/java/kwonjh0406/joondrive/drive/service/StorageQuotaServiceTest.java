@@ -0,0 +1,108 @@
+package kwonjh0406.joondrive.drive.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kwonjh0406.joondrive.file.exception.StorageLimitExceededException;
+import kwonjh0406.joondrive.file.repository.UploadSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StorageQuotaServiceTest {
+
+    private static final Long USER_ID = 1L;
+
+    private final DriveService driveService = mock(DriveService.class);
+    private final UploadSessionRepository uploadSessionRepository = mock(UploadSessionRepository.class);
+    private StorageQuotaService quotaService;
+
+    @BeforeEach
+    void setUp() {
+        // 한도 1000, 확정 사용량 200 + 분할 업로드 세션 100 → 남은 용량 700
+        when(driveService.getStorageLimit(USER_ID)).thenReturn(1000L);
+        when(driveService.getUsedStorage(USER_ID)).thenReturn(200L);
+        when(uploadSessionRepository.sumTotalSizeByUserId(USER_ID)).thenReturn(100L);
+        quotaService = new StorageQuotaService(driveService, uploadSessionRepository, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void reserveCountsUsedStorageAndOpenSessions() {
+        quotaService.reserve(USER_ID, 700);
+
+        assertThat(quotaService.getReservedStorage(USER_ID)).isEqualTo(700);
+        assertThatThrownBy(() -> quotaService.reserve(USER_ID, 1))
+                .isInstanceOf(StorageLimitExceededException.class);
+    }
+
+    @Test
+    void releaseReturnsReservationOnlyOnce() {
+        QuotaReservation reservation = quotaService.reserve(USER_ID, 500);
+
+        reservation.release();
+        reservation.release();
+        reservation.commit();
+
+        assertThat(quotaService.getReservedStorage(USER_ID)).isZero();
+        quotaService.reserve(USER_ID, 700);
+    }
+
+    @Test
+    void commitOutsideTransactionReleasesImmediately() {
+        quotaService.reserve(USER_ID, 300).commit();
+
+        assertThat(quotaService.getReservedStorage(USER_ID)).isZero();
+    }
+
+    @Test
+    void parallelReservationsNeverExceedLimit() throws Exception {
+        // 남은 700 바이트를 10 바이트씩 동시에 200 번 요청하면 정확히 70 번만 성공
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<QuotaReservation>> attempts = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                attempts.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        return quotaService.reserve(USER_ID, 10);
+                    } catch (StorageLimitExceededException e) {
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+
+            List<QuotaReservation> granted = new ArrayList<>();
+            for (Future<QuotaReservation> attempt : attempts) {
+                QuotaReservation reservation = attempt.get(10, TimeUnit.SECONDS);
+                if (reservation != null) granted.add(reservation);
+            }
+            assertThat(granted).hasSize(70);
+            assertThat(quotaService.getReservedStorage(USER_ID)).isEqualTo(700);
+
+            // 동시에 풀어도 (같은 예약을 두 번 풀어도) 장부가 정확히 0 으로 돌아옴
+            List<Future<?>> releases = new ArrayList<>();
+            for (QuotaReservation reservation : granted) {
+                releases.add(executor.submit(reservation::release));
+                releases.add(executor.submit(reservation::release));
+            }
+            for (Future<?> release : releases) {
+                release.get(10, TimeUnit.SECONDS);
+            }
+            assertThat(quotaService.getReservedStorage(USER_ID)).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package kwonjh0406.joondrive.file.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kwonjh0406.joondrive.file.entity.FileEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileDownloadServiceTest {
+
+    private static final String CONTENT = "0123456789abcdefghij";
+    private static final String ETAG = "\"v1\"";
+    private static final Instant MODIFIED = Instant.parse("2025-01-01T00:00:00Z");
+
+    private final FileDownloadService downloadService = new FileDownloadService(new SimpleMeterRegistry());
+
+    @TempDir
+    Path dir;
+
+    private Path path;
+    private FileEntity file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        path = dir.resolve("blob");
+        Files.writeString(path, CONTENT);
+        Files.setLastModifiedTime(path, FileTime.from(MODIFIED));
+        file = new FileEntity();
+        file.setId(1L);
+        file.setSize((long) CONTENT.length());
+    }
+
+    @Test
+    void sendsWholeFileWithoutRange() throws IOException {
+        MockHttpServletResponse response = download(get());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void sendsSingleRange() throws IOException {
+        MockHttpServletResponse response = download(get("bytes=2-5"));
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/20");
+        assertThat(response.getContentAsString()).isEqualTo("2345");
+    }
+
+    @Test
+    void sendsSuffixRange() throws IOException {
+        MockHttpServletResponse response = download(get("bytes=-3"));
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 17-19/20");
+        assertThat(response.getContentAsString()).isEqualTo("hij");
+    }
+
+    @Test
+    void coalescesOverlappingAndAdjacentRanges() throws IOException {
+        MockHttpServletResponse response = download(get("bytes=4-6,0-3,5-9"));
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 0-9/20");
+        assertThat(response.getContentAsString()).isEqualTo("0123456789");
+    }
+
+    @Test
+    void sendsDisjointRangesAsMultipart() throws IOException {
+        MockHttpServletResponse response = download(get("bytes=15-16,0-1"));
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentType()).startsWith("multipart/byteranges; boundary=");
+        String body = response.getContentAsString();
+        assertThat(body.indexOf("Content-Range: bytes 0-1/20\r\n\r\n01")).isNotNegative();
+        assertThat(body.indexOf("Content-Range: bytes 15-16/20\r\n\r\nfg")).isGreaterThan(body.indexOf("bytes 0-1/20"));
+    }
+
+    @Test
+    void rejectsWhenNoRangeIsSatisfiable() throws IOException {
+        MockHttpServletResponse response = download(get("bytes=20-30,40-"));
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */20");
+    }
+
+    @Test
+    void dropsUnsatisfiableRangesWhenOthersRemain() throws IOException {
+        MockHttpServletResponse response = download(get("bytes=30-40,1-2"));
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString()).isEqualTo("12");
+    }
+
+    @Test
+    void ignoresRangesRequestingMoreThanTheFile() throws IOException {
+        MockHttpServletResponse response = download(get("bytes=0-19,0-19"));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void ignoresTooManyRanges() throws IOException {
+        StringBuilder ranges = new StringBuilder("bytes=");
+        for (int i = 0; i < 17; i++) {
+            if (i > 0) ranges.append(',');
+            ranges.append(i).append('-').append(i);
+        }
+        // 붙은 구간 17 개는 하나로 합쳐지므로 그대로 206
+        assertThat(download(get(ranges.toString())).getStatus()).isEqualTo(206);
+
+        // 띄엄띄엄 17 개는 합쳐도 MAX_RANGES 를 넘으므로 전체 전송
+        Files.writeString(path, CONTENT.repeat(2));
+        file.setSize((long) CONTENT.length() * 2);
+        ranges = new StringBuilder("bytes=");
+        for (int i = 0; i < 17; i++) {
+            if (i > 0) ranges.append(',');
+            ranges.append(i * 2).append('-').append(i * 2);
+        }
+        assertThat(download(get(ranges.toString())).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void honorsIfRangeWithMatchingETag() throws IOException {
+        MockHttpServletRequest request = get("bytes=0-1");
+        request.addHeader(HttpHeaders.IF_RANGE, ETAG);
+
+        assertThat(download(request).getStatus()).isEqualTo(206);
+    }
+
+    @Test
+    void sendsWholeFileWhenIfRangeETagDiffers() throws IOException {
+        MockHttpServletRequest request = get("bytes=0-1");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"v0\"");
+
+        MockHttpServletResponse response = download(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void comparesIfRangeDateInSeconds() throws IOException {
+        MockHttpServletRequest current = get("bytes=0-1");
+        current.addHeader(HttpHeaders.IF_RANGE, "Wed, 01 Jan 2025 00:00:00 GMT");
+        assertThat(download(current).getStatus()).isEqualTo(206);
+
+        MockHttpServletRequest stale = get("bytes=0-1");
+        stale.addHeader(HttpHeaders.IF_RANGE, "Tue, 31 Dec 2024 23:59:59 GMT");
+        assertThat(download(stale).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void answersNotModifiedForMatchingETag() throws IOException {
+        MockHttpServletRequest request = get("bytes=0-1");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+
+        MockHttpServletResponse response = download(request);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void rangeOffsetsReferToOriginalContentOfCompressedFile() throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(path))) {
+            out.write(CONTENT.getBytes(StandardCharsets.US_ASCII));
+        }
+        file.setCodec(BlobService.CODEC_GZIP);
+
+        MockHttpServletResponse response = download(get("bytes=10-13"));
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 10-13/20");
+        assertThat(response.getContentAsString()).isEqualTo("abcd");
+    }
+
+    @Test
+    void handsSingleRangeToSendfileWhenSupported() throws IOException {
+        MockHttpServletRequest request = get("bytes=2-5");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+
+        MockHttpServletResponse response = download(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentLengthLong()).isEqualTo(4);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename")).isEqualTo(path.toRealPath().toString());
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(2L);
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(6L);
+    }
+
+    @Test
+    void streamsCompressedFileEvenWhenSendfileIsSupported() throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(path))) {
+            out.write(CONTENT.getBytes(StandardCharsets.US_ASCII));
+        }
+        file.setCodec(BlobService.CODEC_GZIP);
+        MockHttpServletRequest request = get();
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+
+        MockHttpServletResponse response = download(request);
+
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename")).isNull();
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    private MockHttpServletResponse download(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        downloadService.writeFile(request, response, file, path, ETAG, "attachment");
+        return response;
+    }
+
+    private static MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/api/files/1/download");
+    }
+
+    private static MockHttpServletRequest get(String range) {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, range);
+        return request;
+    }
+}
@@ -0,0 +1,161 @@
+package kwonjh0406.joondrive.file.service;
+
+import kwonjh0406.joondrive.file.dto.FileSearchResult;
+import kwonjh0406.joondrive.file.repository.FileSearchEntryView;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileNameIndexTest {
+
+    @Test
+    void ranksExactThenPrefixThenWordPrefixThenSubstring() {
+        FileNameIndex index = load(
+                new Entry(1L, null, "myreport.doc", "file"),
+                new Entry(2L, null, "final report.txt", "file"),
+                new Entry(3L, null, "report-2024.pdf", "file"),
+                new Entry(4L, null, "Report", "folder"),
+                new Entry(5L, null, "invoice.pdf", "file"));
+
+        assertThat(ids(index.search("report", 10))).containsExactly(4L, 3L, 2L, 1L);
+    }
+
+    @Test
+    void keepsShortestNamesWithinLimit() {
+        FileNameIndex index = load(
+                new Entry(1L, null, "photo-archive-2024.zip", "file"),
+                new Entry(2L, null, "photo.jpg", "file"),
+                new Entry(3L, null, "photo-1.jpg", "file"));
+
+        assertThat(ids(index.search("photo", 2))).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void buildsPathFromAncestors() {
+        FileNameIndex index = load(
+                new Entry(1L, null, "문서", "folder"),
+                new Entry(2L, 1L, "2025", "folder"),
+                new Entry(3L, 2L, "보고서.pdf", "file"));
+
+        List<FileSearchResult> results = index.search("보고서", 10);
+
+        assertThat(results).singleElement().satisfies(result -> {
+            assertThat(result.getPath()).isEqualTo("/문서/2025/보고서.pdf");
+            assertThat(result.getParentId()).isEqualTo(2L);
+            assertThat(result.getFileType()).isEqualTo("file");
+        });
+    }
+
+    @Test
+    void findsTwoAndOneCharacterQueries() {
+        FileNameIndex index = load(
+                new Entry(1L, null, "여행 사진.jpg", "file"),
+                new Entry(2L, null, "notes.txt", "file"));
+
+        assertThat(ids(index.search("사진", 10))).containsExactly(1L);
+        assertThat(ids(index.search("x", 10))).containsExactly(2L);
+    }
+
+    @Test
+    void hidesDescendantsOfRemovedFolder() {
+        FileNameIndex index = load(
+                new Entry(1L, null, "old", "folder"),
+                new Entry(2L, 1L, "draft.txt", "file"));
+
+        index.apply(i -> i.remove(List.of(1L)));
+
+        assertThat(index.search("draft", 10)).isEmpty();
+    }
+
+    @Test
+    void reindexesRenamedAndMovedEntries() {
+        FileNameIndex index = load(
+                new Entry(1L, null, "a", "folder"),
+                new Entry(2L, null, "b", "folder"),
+                new Entry(3L, 1L, "보고서.pdf", "file"));
+
+        index.apply(i -> i.put(3L, 1L, "summary.pdf", false));
+        index.apply(i -> i.move(List.of(3L), 2L));
+
+        assertThat(index.search("보고서", 10)).isEmpty();
+        assertThat(index.search("summary", 10)).extracting(FileSearchResult::getPath).containsExactly("/b/summary.pdf");
+    }
+
+    @Test
+    void appliesChangesMadeBeforeLoadAfterLoading() {
+        FileNameIndex index = new FileNameIndex();
+
+        index.apply(i -> i.put(2L, null, "uploaded-during-load.txt", false));
+        index.apply(i -> i.remove(List.of(1L)));
+        index.ensureLoaded(() -> List.of(new Entry(1L, null, "deleted-during-load.txt", "file")));
+
+        assertThat(ids(index.search("during-load", 10))).containsExactly(2L);
+    }
+
+    @Test
+    void estimatesMemoryGrowingWithEntries() {
+        FileNameIndex index = load(new Entry(1L, null, "a.txt", "file"));
+        long small = index.estimatedBytes();
+
+        index.apply(i -> i.put(2L, null, "a-much-longer-file-name.txt", false));
+
+        assertThat(small).isPositive();
+        assertThat(index.estimatedBytes()).isGreaterThan(small);
+    }
+
+    @Test
+    void matchesNaiveScanAfterRandomChanges() {
+        String[] words = {"report", "photo", "사진", "보고서", "draft", "final", "rep", "to"};
+        Random random = new Random(7);
+        Map<Long, String> expected = new HashMap<>();
+        List<FileSearchEntryView> rows = new ArrayList<>();
+        for (long id = 1; id <= 3000; id++) {
+            String name = words[random.nextInt(words.length)] + "-" + random.nextInt(100) + words[random.nextInt(words.length)];
+            rows.add(new Entry(id, null, name, "file"));
+            expected.put(id, name);
+        }
+        FileNameIndex index = new FileNameIndex();
+        index.ensureLoaded(() -> rows);
+
+        // 항목 번호 맵이 커지고 지워지는 경로를 함께 거치도록 추가/이름 변경/삭제를 섞음
+        for (int i = 0; i < 3000; i++) {
+            long id = 1 + random.nextInt(4000);
+            if (random.nextInt(3) == 0) {
+                index.apply(change -> change.remove(List.of(id)));
+                expected.remove(id);
+            } else {
+                String name = words[random.nextInt(words.length)] + "_" + i;
+                index.apply(change -> change.put(id, null, name, false));
+                expected.put(id, name);
+            }
+        }
+
+        for (String query : List.of("report", "사진", "보고", "t", "to-1", "final_2", "missing")) {
+            List<Long> naive = expected.entrySet().stream()
+                    .filter(entry -> entry.getValue().toLowerCase(Locale.ROOT).contains(query))
+                    .map(Map.Entry::getKey)
+                    .toList();
+            assertThat(ids(index.search(query, 5000))).as(query).containsExactlyInAnyOrderElementsOf(naive);
+        }
+    }
+
+    private static FileNameIndex load(Entry... entries) {
+        FileNameIndex index = new FileNameIndex();
+        index.ensureLoaded(() -> List.of(entries));
+        return index;
+    }
+
+    private static List<Long> ids(List<FileSearchResult> results) {
+        return results.stream().map(FileSearchResult::getId).toList();
+    }
+
+    private record Entry(Long getId, Long getParentId, String getName, String getFileType) implements FileSearchEntryView {
+    }
+}
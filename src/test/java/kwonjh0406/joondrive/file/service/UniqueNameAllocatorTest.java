@@ -0,0 +1,95 @@
+package kwonjh0406.joondrive.file.service;
+
+import kwonjh0406.joondrive.file.service.UniqueNameAllocator.ExistingNames;
+import kwonjh0406.joondrive.file.service.UniqueNameAllocator.SuffixPattern;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UniqueNameAllocatorTest {
+
+    @Test
+    void numbersRepeatedNamesBeforeExtension() {
+        UniqueNameAllocator allocator = new UniqueNameAllocator();
+
+        assertThat(allocator.allocate("보고서.pdf")).isEqualTo("보고서.pdf");
+        assertThat(allocator.allocate("보고서.pdf")).isEqualTo("보고서(1).pdf");
+        assertThat(allocator.allocate("보고서.pdf")).isEqualTo("보고서(2).pdf");
+    }
+
+    @Test
+    void treatsNamesDifferingOnlyInCaseAsSame() {
+        UniqueNameAllocator allocator = new UniqueNameAllocator();
+
+        assertThat(allocator.allocate("Report.PDF")).isEqualTo("Report.PDF");
+        assertThat(allocator.allocate("report.pdf")).isEqualTo("report(1).pdf");
+    }
+
+    @Test
+    void keepsFolderSlashAndIgnoresDotsOutsideLastName() {
+        UniqueNameAllocator allocator = new UniqueNameAllocator();
+
+        allocator.allocate("docs/");
+        allocator.allocate(".bashrc");
+        allocator.allocate("v1.2/readme");
+
+        assertThat(allocator.allocate("docs/")).isEqualTo("docs(1)/");
+        assertThat(allocator.allocate(".bashrc")).isEqualTo(".bashrc(1)");
+        assertThat(allocator.allocate("v1.2/readme")).isEqualTo("v1.2/readme(1)");
+    }
+
+    @Test
+    void skipsNumberedNamesAlreadyAllocated() {
+        UniqueNameAllocator allocator = new UniqueNameAllocator();
+
+        allocator.allocate("a(1).txt");
+        allocator.allocate("a.txt");
+
+        assertThat(allocator.allocate("a.txt")).isEqualTo("a(2).txt");
+    }
+
+    @Test
+    void continuesAfterHighestExistingSuffix() {
+        List<String> lookups = new ArrayList<>();
+        UniqueNameAllocator allocator = new UniqueNameAllocator(name -> {
+            lookups.add(name);
+            return new ExistingNames(true, 4);
+        });
+
+        assertThat(allocator.allocate("a.txt")).isEqualTo("a(5).txt");
+        assertThat(allocator.allocate("A.TXT")).isEqualTo("A(6).TXT");
+        // 원래 이름별로 처음 한 번만 조회
+        assertThat(lookups).containsExactly("a.txt");
+    }
+
+    @Test
+    void usesFreeNameEvenWhenNumberedVariantsExist() {
+        Map<String, ExistingNames> existing = Map.of("a.txt", new ExistingNames(false, 3));
+        UniqueNameAllocator allocator = new UniqueNameAllocator(name -> existing.getOrDefault(name, ExistingNames.NONE));
+
+        assertThat(allocator.allocate("a.txt")).isEqualTo("a.txt");
+        assertThat(allocator.allocate("a.txt")).isEqualTo("a(4).txt");
+    }
+
+    @Test
+    void suffixPatternEscapesLikeWildcards() {
+        SuffixPattern pattern = UniqueNameAllocator.suffixPattern("100%_done!.txt");
+
+        assertThat(pattern.likePattern()).isEqualTo("100!%!_done!!(%).txt");
+        assertThat(pattern.prefixLength()).isEqualTo(10);
+        assertThat(pattern.suffixLength()).isEqualTo(4);
+    }
+
+    @Test
+    void suffixPatternCountsCodePoints() {
+        SuffixPattern pattern = UniqueNameAllocator.suffixPattern("😀사진.png");
+
+        assertThat(pattern.likePattern()).isEqualTo("😀사진(%).png");
+        assertThat(pattern.prefixLength()).isEqualTo(3);
+        assertThat(pattern.suffixLength()).isEqualTo(4);
+    }
+}
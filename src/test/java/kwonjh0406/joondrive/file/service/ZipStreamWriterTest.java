@@ -0,0 +1,203 @@
+package kwonjh0406.joondrive.file.service;
+
+import kwonjh0406.joondrive.file.service.ZipStreamWriter.ChunkSource;
+import kwonjh0406.joondrive.file.service.ZipStreamWriter.DeflatedChunk;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ZipStreamWriterTest {
+
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final long FOUR_GIB = 4L << 30;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsEveryEntryKind() throws IOException {
+        byte[] text = "joondrive 압축 내보내기 ".repeat(2000).getBytes(StandardCharsets.UTF_8);
+        byte[] random = new byte[100_000];
+        new Random(1).nextBytes(random);
+        byte[] large = largeText(1_000_000);
+
+        Path zipPath = dir.resolve("all.zip");
+        try (OutputStream out = Files.newOutputStream(zipPath)) {
+            ZipStreamWriter zip = new ZipStreamWriter(out);
+            zip.putPrepared("stored.bin", ZipStreamWriter.STORED, crc(random), random.length, random, random.length);
+            byte[] deflated = ZipStreamWriter.deflate(text, text.length);
+            zip.putPrepared("폴더/prepared.txt", ZipStreamWriter.DEFLATED, crc(text), text.length, deflated, deflated.length);
+            zip.putRaw("raw.txt", ZipStreamWriter.DEFLATED, crc(text), deflated.length, text.length, new ByteArrayInputStream(deflated));
+            zip.putDeflated("streamed.txt", new ByteArrayInputStream(text), Deflater.DEFAULT_COMPRESSION);
+            zip.putDeflated("uncompressed.bin", new ByteArrayInputStream(random), Deflater.NO_COMPRESSION);
+            zip.putDeflatedChunks("chunked.txt", chunks(large, 64 * 1024));
+            zip.putPrepared("empty/", ZipStreamWriter.STORED, 0, 0, new byte[0], 0);
+            zip.finish();
+            assertThat(zip.getEntryCount()).isEqualTo(7);
+            assertThat(zip.getWritten()).isEqualTo(Files.size(zipPath));
+        }
+
+        Map<String, byte[]> expected = new LinkedHashMap<>();
+        expected.put("stored.bin", random);
+        expected.put("폴더/prepared.txt", text);
+        expected.put("raw.txt", text);
+        expected.put("streamed.txt", text);
+        expected.put("uncompressed.bin", random);
+        expected.put("chunked.txt", large);
+        expected.put("empty/", new byte[0]);
+
+        // ZipInputStream 은 로컬 헤더와 data descriptor 를, ZipFile 은 중앙 디렉터리를 읽으며 둘 다 CRC 를 검사함
+        try (ZipInputStream in = new ZipInputStream(Files.newInputStream(zipPath))) {
+            List<String> names = new ArrayList<>();
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                names.add(entry.getName());
+                assertThat(in.readAllBytes()).as(entry.getName()).isEqualTo(expected.get(entry.getName()));
+            }
+            assertThat(names).containsExactlyElementsOf(expected.keySet());
+        }
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+            assertThat(zipFile.size()).isEqualTo(expected.size());
+            for (Map.Entry<String, byte[]> item : expected.entrySet()) {
+                ZipEntry entry = zipFile.getEntry(item.getKey());
+                assertThat(entry.getSize()).as(item.getKey()).isEqualTo(item.getValue().length);
+                assertThat(entry.getCrc()).as(item.getKey()).isEqualTo(crc(item.getValue()));
+                try (InputStream in = zipFile.getInputStream(entry)) {
+                    assertThat(in.readAllBytes()).as(item.getKey()).isEqualTo(item.getValue());
+                }
+            }
+            assertThat(zipFile.getEntry("stored.bin").getMethod()).isEqualTo(ZipEntry.STORED);
+            assertThat(zipFile.getEntry("chunked.txt").getMethod()).isEqualTo(ZipEntry.DEFLATED);
+        }
+    }
+
+    @Test
+    void writesZip64ForEntryLargerThanFourGiB() throws IOException {
+        // 0 으로 채운 조각은 거의 압축되므로 4GiB 가 넘는 항목도 몇 MB 짜리 파일이 됨
+        byte[] zeros = new byte[16 * 1024 * 1024];
+        byte[] middle = ZipStreamWriter.deflateChunk(zeros, 0, zeros.length, false);
+        byte[] tail = "끝".getBytes(StandardCharsets.UTF_8);
+        byte[] last = ZipStreamWriter.deflateChunk(tail, 0, tail.length, true);
+        long zerosCrc = crc(zeros);
+        int middleCount = (int) (FOUR_GIB / zeros.length) + 1;
+        long hugeSize = (long) middleCount * zeros.length + tail.length;
+
+        Path zipPath = dir.resolve("huge.zip");
+        try (OutputStream out = Files.newOutputStream(zipPath)) {
+            ZipStreamWriter zip = new ZipStreamWriter(out);
+            zip.putDeflatedChunks("huge.bin", new ChunkSource() {
+                private int produced;
+
+                @Override
+                public DeflatedChunk next() {
+                    produced++;
+                    if (produced <= middleCount) return new DeflatedChunk(middle, zerosCrc, zeros.length);
+                    if (produced == middleCount + 1) return new DeflatedChunk(last, crc(tail), tail.length);
+                    return null;
+                }
+            });
+            byte[] after = "after".getBytes(StandardCharsets.US_ASCII);
+            zip.putPrepared("after.txt", ZipStreamWriter.STORED, crc(after), after.length, after, after.length);
+            zip.finish();
+        }
+
+        long expectedCrc = crc(zeros, middleCount, tail);
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+            ZipEntry huge = zipFile.getEntry("huge.bin");
+            assertThat(huge.getSize()).isEqualTo(hugeSize).isGreaterThan(FOUR_GIB);
+            assertThat(huge.getCrc()).isEqualTo(expectedCrc);
+            try (InputStream in = zipFile.getInputStream(zipFile.getEntry("after.txt"))) {
+                assertThat(in.readAllBytes()).isEqualTo("after".getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+        // 끝까지 풀면서 ZIP64 data descriptor 의 크기와 CRC 를 검사
+        try (ZipInputStream in = new ZipInputStream(Files.newInputStream(zipPath))) {
+            assertThat(in.getNextEntry().getName()).isEqualTo("huge.bin");
+            assertThat(in.transferTo(OutputStream.nullOutputStream())).isEqualTo(hugeSize);
+            assertThat(in.getNextEntry().getName()).isEqualTo("after.txt");
+        }
+    }
+
+    @Test
+    void crc32CombineMatchesCrcOfConcatenation() {
+        byte[] data = new byte[200_000];
+        new Random(2).nextBytes(data);
+
+        for (int split : new int[]{0, 1, 4096, 123_457, data.length}) {
+            CRC32 first = new CRC32();
+            first.update(data, 0, split);
+            CRC32 second = new CRC32();
+            second.update(data, split, data.length - split);
+
+            assertThat(ZipStreamWriter.crc32Combine(first.getValue(), second.getValue(), data.length - split))
+                    .as("split at %d", split)
+                    .isEqualTo(crc(data));
+        }
+    }
+
+    // ZipExportService 처럼 앞 조각의 끝부분을 사전으로 넘겨 조각별로 압축
+    private static ChunkSource chunks(byte[] data, int chunkSize) {
+        return new ChunkSource() {
+            private int start;
+
+            @Override
+            public DeflatedChunk next() {
+                if (start >= data.length) return null;
+                int dictionaryLength = Math.min(DICTIONARY_SIZE, start);
+                int length = Math.min(chunkSize, data.length - start);
+                boolean last = start + length == data.length;
+                byte[] window = Arrays.copyOfRange(data, start - dictionaryLength, start + length);
+                CRC32 crc = new CRC32();
+                crc.update(window, dictionaryLength, length);
+                start += length;
+                return new DeflatedChunk(ZipStreamWriter.deflateChunk(window, dictionaryLength, length, last), crc.getValue(), length);
+            }
+        };
+    }
+
+    private static byte[] largeText(int length) {
+        String[] words = {"report", "보고서", "photo", "사진", "draft", "2025", "final"};
+        Random random = new Random(3);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < length) {
+            text.append(words[random.nextInt(words.length)]).append(random.nextInt(10) == 0 ? '\n' : ' ');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    // zeros 를 count 번 이은 뒤 tail 을 붙인 내용의 CRC
+    private static long crc(byte[] zeros, int count, byte[] tail) {
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < count; i++) {
+            crc.update(zeros);
+        }
+        crc.update(tail);
+        return crc.getValue();
+    }
+}